@@ -0,0 +1,138 @@
+package benchmarks;
+
+import model.Board;
+import model.GameRandom;
+import model.Snake;
+import model.Snake.Direction;
+import model.Tile;
+
+/**
+ * Builds the boards and snakes shared by the benchmarks
+ *
+ * Snakes follow a fixed cycle that visits every tile inside the walls, so a benchmark can keep
+ * moving a snake of any length forever without it hitting a wall or itself. The cycle goes
+ * right along the top row, snakes back and forth through the remaining columns and returns up
+ * the first column, which works for any board with an even number of rows inside the walls.
+ *
+ * @author Krish Sachdeva
+ */
+
+public class BenchmarkBoards {
+    /**
+     * The seed every benchmark starts from, so runs place the same FoodPellets
+     */
+    public static final long SEED = 20240501L;
+    
+    /**
+     * Create the random number generator of a benchmark board
+     *
+     * @return A GameRandom seeded with SEED
+     */
+    public static GameRandom random() {
+        return new GameRandom(SEED);
+    }
+    
+    /**
+     * Get the width or height in pixels of a board with a given number of tiles per side
+     *
+     * @param tiles An integer representing the number of tiles per side
+     * @return An integer representing the number of pixels per side
+     */
+    public static int pixels(int tiles) {
+        return tiles * Board.TILE_SIZE;
+    }
+    
+    /**
+     * Get the number of tiles inside the walls of a square board
+     *
+     * @param tiles An integer representing the number of tiles per side
+     * @return An integer representing the number of tiles a Snake or FoodPellet can use
+     */
+    public static int interior(int tiles) {
+        return (tiles - 2) * (tiles - 2);
+    }
+    
+    /**
+     * Get the direction that keeps a Snake on the cycle from a given tile
+     *
+     * @param cell    A packed cell created by {@link Tile#pack(int, int)}
+     * @param columns An integer representing the number of columns of the board
+     * @param rows    An integer representing the number of rows of the board
+     * @return The Direction of the next tile on the cycle
+     */
+    public static Direction cycleDirection(int cell, int columns, int rows) {
+        int width = columns - 2;
+        int height = rows - 2;
+        int x = Tile.unpackX(cell) - 1;
+        int y = Tile.unpackY(cell) - 1;
+        
+        if (y == 0)
+            return x < width - 1 ? Direction.RIGHT : Direction.DOWN;
+        if (x == 0)
+            return Direction.UP;
+        if (y % 2 == 1) {
+            if (x > 1)
+                return Direction.LEFT;
+            return y < height - 1 ? Direction.DOWN : Direction.LEFT;
+        }
+        return x < width - 1 ? Direction.RIGHT : Direction.DOWN;
+    }
+    
+    /**
+     * Move a Snake one tile along the cycle
+     *
+     * @param snake   The Snake to be moved
+     * @param columns An integer representing the number of columns of the board
+     * @param rows    An integer representing the number of rows of the board
+     */
+    public static void follow(Snake snake, int columns, int rows) {
+        snake.setDirection(cycleDirection(snake.getHeadCell(), columns, rows));
+        snake.move();
+    }
+    
+    /**
+     * Create a Snake in the top left corner of the board, where the cycle starts
+     *
+     * @return A Snake of length one that has not been placed on a Board yet
+     */
+    public static Snake cornerSnake() {
+        return new Snake(Board.TILE_SIZE, Board.TILE_SIZE);
+    }
+    
+    /**
+     * Grow a Snake that is on a Board until it has a given length, keeping it on the cycle
+     *
+     * @param snake  The Snake to be grown
+     * @param board  The Board the Snake is on
+     * @param length An integer representing the number of segments the Snake should have
+     */
+    public static void growTo(Snake snake, Board board, int length) {
+        while (snake.size() < length) {
+            snake.grow();
+            follow(snake, board.getColumns(), board.getRows());
+        }
+    }
+    
+    /**
+     * Limit a requested snake length so the Snake and the FoodPellets fit on the board
+     *
+     * @param snakeLength An integer representing the requested number of segments
+     * @param pellets     An integer representing the number of FoodPellets on the board
+     * @param tiles       An integer representing the number of tiles per side
+     * @return The requested length, or the largest length that still leaves room on the board
+     */
+    public static int fitSnake(int snakeLength, int pellets, int tiles) {
+        return Math.max(1, Math.min(snakeLength, interior(tiles) - pellets - 1));
+    }
+    
+    /**
+     * Limit a requested pellet count so the FoodPellets leave room for a Snake
+     *
+     * @param pellets An integer representing the requested number of FoodPellets
+     * @param tiles   An integer representing the number of tiles per side
+     * @return The requested count, or half of the free tiles on small boards
+     */
+    public static int fitPellets(int pellets, int tiles) {
+        return Math.min(pellets, interior(tiles) / 2);
+    }
+}
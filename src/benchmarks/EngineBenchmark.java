@@ -0,0 +1,85 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import model.Board;
+import model.Effects;
+import model.GameEngine;
+import model.Snake;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a whole tick of the game, which covers checking for eaten FoodPellets
+ *
+ * The Snake follows the same cycle as the other benchmarks, so it only dies once it has filled
+ * the board. When that happens a new game is started, which only shows up in the score on the
+ * smallest boards.
+ *
+ * @author Krish Sachdeva
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class EngineBenchmark {
+    @Param({"20", "50", "500", "5000"})
+    private int tiles;
+    
+    @Param({"1", "10", "1000"})
+    private int pellets;
+    
+    @Param({"false", "true"})
+    private boolean poweredUp;
+    
+    private GameEngine engine;
+    private int columns;
+    private int rows;
+    
+    /**
+     * Start a new game at the start of each iteration
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        newGame();
+    }
+    
+    /**
+     * Start a new game and steer the Snake onto the cycle
+     */
+    private void newGame() {
+        engine = new GameEngine(BenchmarkBoards.pixels(tiles), BenchmarkBoards.pixels(tiles), BenchmarkBoards.fitPellets(pellets, tiles), BenchmarkBoards.SEED);
+        Board board = engine.getBoard();
+        columns = board.getColumns();
+        rows = board.getRows();
+        
+        // The Snake starts in the middle heading right, one step up puts it on a row of the
+        // cycle that it can follow without turning back on itself
+        engine.step(Snake.Direction.UP);
+        if (poweredUp) {
+            engine.getEffects().start(Effects.Type.POWER_UP, Integer.MAX_VALUE);
+        }
+    }
+    
+    @Benchmark
+    public boolean step() {
+        Snake.Direction input = BenchmarkBoards.cycleDirection(engine.getSnake().getHeadCell(), columns, rows);
+        if (!engine.step(input)) {
+            newGame();
+        }
+        return engine.isGameOver();
+    }
+}
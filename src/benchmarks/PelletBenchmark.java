@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import model.Board;
+import model.FoodPellet;
+import model.Snake;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures moving a FoodPellet to a random free tile
+ *
+ * Run with "-prof gc" to see the allocation rate next to the time per operation.
+ *
+ * @author Krish Sachdeva
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class PelletBenchmark {
+    @Param({"20", "50", "500", "5000"})
+    private int tiles;
+    
+    @Param({"5", "300", "100000"})
+    private int snakeLength;
+    
+    @Param({"1", "10", "1000"})
+    private int pellets;
+    
+    private FoodPellet[] foodPellets;
+    private int next;
+    
+    /**
+     * Fill a board of the requested size with a Snake and FoodPellets
+     */
+    @Setup
+    public void setUp() {
+        int numPellets = BenchmarkBoards.fitPellets(pellets, tiles);
+        Snake snake = BenchmarkBoards.cornerSnake();
+        Board board = new Board(BenchmarkBoards.pixels(tiles), BenchmarkBoards.pixels(tiles), numPellets, snake, BenchmarkBoards.random());
+        BenchmarkBoards.growTo(snake, board, BenchmarkBoards.fitSnake(snakeLength, numPellets, tiles));
+        
+        ArrayList<FoodPellet> list = board.getFoodPellets();
+        foodPellets = list.toArray(new FoodPellet[0]);
+        next = 0;
+    }
+    
+    @Benchmark
+    public boolean respawn() {
+        FoodPellet pellet = foodPellets[next];
+        next = next + 1 == foodPellets.length ? 0 : next + 1;
+        return pellet.respawn(false);
+    }
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import model.Board;
+import model.Snake;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures moving a Snake and checking it for collisions
+ *
+ * Run with "-prof gc" to see the allocation rate next to the time per operation, these paths
+ * are expected to allocate nothing.
+ *
+ * @author Krish Sachdeva
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class SnakeBenchmark {
+    @Param({"20", "50", "500", "5000"})
+    private int tiles;
+    
+    @Param({"5", "300", "100000"})
+    private int snakeLength;
+    
+    private Board board;
+    private Snake snake;
+    private Snake detachedSnake;
+    private int columns;
+    private int rows;
+    
+    /**
+     * Place a Snake of the requested length on a board of the requested size
+     */
+    @Setup
+    public void setUp() {
+        int length = BenchmarkBoards.fitSnake(snakeLength, 1, tiles);
+        snake = BenchmarkBoards.cornerSnake();
+        board = new Board(BenchmarkBoards.pixels(tiles), BenchmarkBoards.pixels(tiles), 1, snake, BenchmarkBoards.random());
+        columns = board.getColumns();
+        rows = board.getRows();
+        BenchmarkBoards.growTo(snake, board, length);
+        
+        // The same Snake without a Board falls back to scanning its body
+        detachedSnake = BenchmarkBoards.cornerSnake();
+        while (detachedSnake.size() < length) {
+            detachedSnake.grow();
+            BenchmarkBoards.follow(detachedSnake, columns, rows);
+        }
+    }
+    
+    @Benchmark
+    public void move() {
+        BenchmarkBoards.follow(snake, columns, rows);
+    }
+    
+    @Benchmark
+    public boolean hasCollidedWithSelf() {
+        return snake.hasCollidedWithSelf();
+    }
+    
+    @Benchmark
+    public boolean hasCollidedWithSelfWithoutBoard() {
+        return detachedSnake.hasCollidedWithSelf();
+    }
+    
+    @Benchmark
+    public boolean isCollision() {
+        return board.isCollision();
+    }
+}
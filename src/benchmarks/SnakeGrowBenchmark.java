@@ -0,0 +1,57 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import model.Snake;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures growing a Snake, including the occasional resize of its body
+ *
+ * Growing never shrinks, so each iteration starts again from a fresh Snake and runs a fixed
+ * batch of calls, the score is the time for the whole batch.
+ *
+ * @author Krish Sachdeva
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = SnakeGrowBenchmark.BATCH_SIZE)
+@Measurement(iterations = 20, batchSize = SnakeGrowBenchmark.BATCH_SIZE)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class SnakeGrowBenchmark {
+    static final int BATCH_SIZE = 100000;
+    
+    @Param({"5", "300", "100000"})
+    private int snakeLength;
+    
+    private Snake snake;
+    
+    /**
+     * Start each iteration from a Snake of the requested length
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        snake = BenchmarkBoards.cornerSnake();
+        while (snake.size() < snakeLength) {
+            snake.grow();
+        }
+    }
+    
+    @Benchmark
+    public void grow() {
+        snake.grow();
+    }
+}
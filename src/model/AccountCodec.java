@@ -0,0 +1,346 @@
+package model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * Reads and writes saved accounts in a small versioned binary format
+ *
+ * A file starts with a four byte magic number and a format version. Numbers are stored as
+ * varints, strings as a varint length followed by UTF-8 bytes. Every record is prefixed with its
+ * length and readers skip whatever follows the fields they know, so a field can be added to the
+ * end of a record, and a new journal record type added, without changing the version. The version
+ * is only raised for changes older readers can not skip, and a file with a newer version is refused.
+ *
+ * Snapshot: magic "SNKA", version, overall high score, account count, then one record per
+ * account holding the username, password and high score.
+ *
+ * Journal: magic "SNKJ", version, then records made of a type byte, a length and the fields.
+ *
+ * @author Krish Sachdeva
+ */
+
+public final class AccountCodec {
+	static final int SNAPSHOT_MAGIC = 0x534E4B41;
+	static final int JOURNAL_MAGIC = 0x534E4B4A;
+	static final int VERSION = 1;
+
+	static final byte CREATE = 1;
+	static final byte HIGH_SCORE = 2;
+	static final byte OVERALL_HIGH_SCORE = 3;
+
+	private static final int INITIAL_CAPACITY = 1 << 16;
+	// Record lengths are stored in two varint bytes
+	private static final int MAX_RECORD_LENGTH = (1 << 14) - 1;
+	private static final int MAX_VARINT_SIZE = 5;
+
+	private AccountCodec() {
+	}
+
+	/**
+	 * Writes a snapshot of every account to a temporary file and moves it over the old snapshot
+	 *
+	 * @param file             The snapshot file
+	 * @param accounts         The accounts to be saved
+	 * @param overallHighScore The overall high score
+	 * @throws IOException If the file can not be written
+	 */
+	public static void writeSnapshot(Path file, Collection<SnakeAccount> accounts, int overallHighScore)
+			throws IOException {
+		Buffer out = new Buffer();
+		out.writeInt(SNAPSHOT_MAGIC);
+		out.writeVarint(VERSION);
+		out.writeVarint(overallHighScore);
+		out.writeVarint(accounts.size());
+		for (SnakeAccount account : accounts) {
+			int start = out.beginRecord();
+			out.writeString(account.getUsername());
+			out.writeString(account.getPassword());
+			out.writeVarint(account.getHighScore());
+			out.endRecord(start);
+		}
+
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			out.writeTo(channel);
+			channel.force(true);
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads a snapshot into an empty collection
+	 *
+	 * @param file     The snapshot file
+	 * @param accounts The collection the accounts are added to
+	 * @throws IOException If the file can not be read or is not a snapshot this version understands
+	 */
+	public static void readSnapshot(Path file, SnakeAccountCollection accounts) throws IOException {
+		ByteBuffer in = readFile(file);
+		try {
+			checkHeader(in, SNAPSHOT_MAGIC, file);
+			accounts.applyOverallHighScore(readVarint(in));
+			int count = readVarint(in);
+			for (int i = 0; i < count; i++) {
+				int end = recordEnd(in);
+				String username = readString(in);
+				String password = readString(in);
+				int highScore = readVarint(in);
+				in.position(end);
+				accounts.loadAccount(username, password, highScore);
+			}
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw new IOException(file + " is truncated or corrupt", e);
+		}
+	}
+
+	/**
+	 * Checks whether an account can be saved. Its snapshot record, the longest record written for
+	 * an account, has to fit the length every record is prefixed with
+	 *
+	 * @param username The username of the account
+	 * @param password The password of the account
+	 * @return A boolean showing whether every record of the account can be written
+	 */
+	static boolean fits(String username, String password) {
+		int length = username.getBytes(StandardCharsets.UTF_8).length + password.getBytes(StandardCharsets.UTF_8).length;
+		return length + 3 * MAX_VARINT_SIZE <= MAX_RECORD_LENGTH;
+	}
+
+	/**
+	 * Creates the header written at the start of a new journal
+	 *
+	 * @return A Buffer holding the journal header
+	 */
+	static Buffer journalHeader() {
+		Buffer out = new Buffer();
+		out.writeInt(JOURNAL_MAGIC);
+		out.writeVarint(VERSION);
+		return out;
+	}
+
+	/**
+	 * Reads a whole file through a channel
+	 *
+	 * @param file The file to be read
+	 * @return A ByteBuffer holding the contents, ready to be read
+	 * @throws IOException If the file can not be read
+	 */
+	static ByteBuffer readFile(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException(file + " is too large");
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0)
+					break;
+			}
+			buffer.flip();
+			return buffer;
+		}
+	}
+
+	/**
+	 * Checks the magic number and version at the start of a file
+	 *
+	 * @param in    The contents of the file
+	 * @param magic The magic number the file should start with
+	 * @param file  The file, used in error messages
+	 * @throws IOException If the file is of another kind or written by a newer version
+	 */
+	static void checkHeader(ByteBuffer in, int magic, Path file) throws IOException {
+		if (in.remaining() < 4 || in.getInt() != magic)
+			throw new IOException(file + " is not a saved account file");
+		int version = readVarint(in);
+		if (version > VERSION)
+			throw new IOException(file + " was written by a newer version (format " + version + ")");
+	}
+
+	/**
+	 * Reads the length of a record and gets where it ends
+	 *
+	 * @param in The buffer positioned at the length of a record
+	 * @return The position right after the record
+	 */
+	static int recordEnd(ByteBuffer in) {
+		int length = readVarint(in);
+		if (length > in.remaining())
+			throw new BufferUnderflowException();
+		return in.position() + length;
+	}
+
+	/**
+	 * Reads an unsigned varint
+	 *
+	 * @param in The buffer to read from
+	 * @return The value read
+	 */
+	static int readVarint(ByteBuffer in) {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = in.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+		throw new IllegalArgumentException("varint is too long");
+	}
+
+	/**
+	 * Reads a length-prefixed UTF-8 string
+	 *
+	 * @param in The buffer to read from
+	 * @return The string read
+	 */
+	static String readString(ByteBuffer in) {
+		int length = readVarint(in);
+		if (length > in.remaining())
+			throw new BufferUnderflowException();
+		String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+		in.position(in.position() + length);
+		return value;
+	}
+
+	/**
+	 * A growable byte buffer that encodes the fields of the format
+	 */
+	static final class Buffer {
+		private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+		/**
+		 * Writes a fixed four byte integer
+		 *
+		 * @param value The value to be written
+		 */
+		void writeInt(int value) {
+			ensure(4);
+			buffer.putInt(value);
+		}
+
+		/**
+		 * Writes an unsigned varint, seven bits per byte
+		 *
+		 * @param value The value to be written
+		 */
+		void writeVarint(int value) {
+			ensure(5);
+			while ((value & ~0x7F) != 0) {
+				buffer.put((byte) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			buffer.put((byte) value);
+		}
+
+		/**
+		 * Writes a single byte
+		 *
+		 * @param value The value to be written
+		 */
+		void writeByte(byte value) {
+			ensure(1);
+			buffer.put(value);
+		}
+
+		/**
+		 * Writes a length-prefixed UTF-8 string
+		 *
+		 * @param value The string to be written
+		 */
+		void writeString(String value) {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeVarint(bytes.length);
+			ensure(bytes.length);
+			buffer.put(bytes);
+		}
+
+		/**
+		 * Reserves room for the length of a record, filled in by endRecord
+		 *
+		 * @return The position of the record, passed to endRecord
+		 */
+		int beginRecord() {
+			// Records are short, a fixed two byte varint leaves room for lengths up to 16383
+			ensure(2);
+			int start = buffer.position();
+			buffer.position(start + 2);
+			return start;
+		}
+
+		/**
+		 * Fills in the length of a record started by beginRecord. A record too long for its length
+		 * is removed again, so the buffer never holds a record without a valid length
+		 *
+		 * @param start The position returned by beginRecord
+		 * @throws IllegalArgumentException If the record is 16384 bytes or longer
+		 */
+		void endRecord(int start) {
+			int length = buffer.position() - start - 2;
+			if (length > MAX_RECORD_LENGTH) {
+				buffer.position(start);
+				throw new IllegalArgumentException("record is too long");
+			}
+			buffer.put(start, (byte) ((length & 0x7F) | 0x80));
+			buffer.put(start + 1, (byte) (length >>> 7));
+		}
+
+		/**
+		 * Gets the number of bytes written
+		 *
+		 * @return The size of the buffer contents
+		 */
+		int size() {
+			return buffer.position();
+		}
+
+		/**
+		 * Forgets everything written after a given size, used to drop a record that could not be finished
+		 *
+		 * @param size A size returned by size()
+		 */
+		void truncate(int size) {
+			buffer.position(size);
+		}
+
+		/**
+		 * Forgets everything written so far
+		 */
+		void clear() {
+			buffer.clear();
+		}
+
+		/**
+		 * Writes the contents of the buffer to a channel
+		 *
+		 * @param channel The channel to be written to
+		 * @throws IOException If the channel can not be written
+		 */
+		void writeTo(FileChannel channel) throws IOException {
+			ByteBuffer contents = buffer.duplicate();
+			contents.flip();
+			while (contents.hasRemaining())
+				channel.write(contents);
+		}
+
+		/**
+		 * Makes sure a number of bytes fit, doubling the buffer if needed
+		 */
+		private void ensure(int bytes) {
+			if (buffer.remaining() >= bytes)
+				return;
+			ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+			buffer.flip();
+			bigger.put(buffer);
+			buffer = bigger;
+		}
+	}
+}
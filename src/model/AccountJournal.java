@@ -0,0 +1,251 @@
+package model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append-only log of the changes made to a SnakeAccountCollection
+ *
+ * Changes are buffered in memory as small records and appended to the journal file on flush, so
+ * saving costs as much as the change and not as much as the whole collection. Every record sets
+ * a value rather than changing it, so replaying a record twice gives the same result. When the
+ * journal grows long it is rotated out and the collection writes a new snapshot, after which
+ * the rotated journal is deleted. Records are encoded by AccountCodec. Changes may be recorded
+ * from several threads, files are only touched by the thread saving the collection.
+ *
+ * @author Krish Sachdeva
+ */
+
+class AccountJournal {
+	private static final int COMPACTION_THRESHOLD = 1000;
+
+	private final Path journalFile;
+	private final Path compactingFile;
+	private AccountCodec.Buffer pending;
+	// Records taken from pending by flush, swapped so new changes are not held up by the disk
+	private AccountCodec.Buffer writing;
+	private int pendingRecords;
+	private int writingRecords;
+	private int journalRecords;
+
+	/**
+	 * Creates a journal stored in a given directory
+	 *
+	 * @param directory The directory holding the journal files
+	 */
+	AccountJournal(Path directory) {
+		journalFile = directory.resolve("accounts.journal");
+		compactingFile = directory.resolve("accounts.journal.compacting");
+		pending = new AccountCodec.Buffer();
+		writing = new AccountCodec.Buffer();
+	}
+
+	/**
+	 * Records that an account was created
+	 *
+	 * @param username The username of the new account
+	 * @param password The password of the new account
+	 * @throws IllegalArgumentException If the record is too long to be saved
+	 */
+	synchronized void recordCreate(String username, String password) {
+		int mark = pending.size();
+		pending.writeByte(AccountCodec.CREATE);
+		int start = pending.beginRecord();
+		pending.writeString(username);
+		pending.writeString(password);
+		endRecord(mark, start);
+	}
+
+	/**
+	 * Records a new high score for an account
+	 *
+	 * @param username The username of the account
+	 * @param score    The new high score
+	 * @throws IllegalArgumentException If the record is too long to be saved
+	 */
+	synchronized void recordHighScore(String username, int score) {
+		int mark = pending.size();
+		pending.writeByte(AccountCodec.HIGH_SCORE);
+		int start = pending.beginRecord();
+		pending.writeString(username);
+		pending.writeVarint(score);
+		endRecord(mark, start);
+	}
+
+	/**
+	 * Records a new overall high score
+	 *
+	 * @param score The new overall high score
+	 */
+	synchronized void recordOverallHighScore(int score) {
+		int mark = pending.size();
+		pending.writeByte(AccountCodec.OVERALL_HIGH_SCORE);
+		int start = pending.beginRecord();
+		pending.writeVarint(score);
+		endRecord(mark, start);
+	}
+
+	/**
+	 * Finishes a record, or drops it together with its type byte if it is too long, so the next
+	 * flush never writes a record the journal can not be read back from
+	 *
+	 * @param mark  The size of pending before the type byte was written
+	 * @param start The position returned by beginRecord
+	 */
+	private void endRecord(int mark, int start) {
+		try {
+			pending.endRecord(start);
+		} catch (IllegalArgumentException e) {
+			pending.truncate(mark);
+			throw e;
+		}
+		pendingRecords++;
+	}
+
+	/**
+	 * Appends the buffered records to the journal file and forces them to disk. Records left from
+	 * a failed flush are written first, the records made since then wait for the next flush
+	 *
+	 * @throws IOException If the journal can not be written
+	 */
+	void flush() throws IOException {
+		synchronized (this) {
+			if (writingRecords == 0) {
+				if (pendingRecords == 0)
+					return;
+				AccountCodec.Buffer swap = writing;
+				writing = pending;
+				pending = swap;
+				writingRecords = pendingRecords;
+				pendingRecords = 0;
+			}
+		}
+
+		try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND)) {
+			if (channel.size() == 0)
+				AccountCodec.journalHeader().writeTo(channel);
+			writing.writeTo(channel);
+			channel.force(false);
+		}
+
+		synchronized (this) {
+			journalRecords += writingRecords;
+			writingRecords = 0;
+			writing.clear();
+		}
+	}
+
+	/**
+	 * Checks whether there are records that have not been written yet
+	 *
+	 * @return A boolean showing whether flush has anything to write
+	 */
+	synchronized boolean hasPending() {
+		return pendingRecords > 0 || writingRecords > 0;
+	}
+
+	/**
+	 * Checks whether the journal is long enough to be folded into a new snapshot
+	 *
+	 * @return A boolean showing whether compaction should run
+	 */
+	synchronized boolean needsCompaction() {
+		return journalRecords >= COMPACTION_THRESHOLD && !Files.exists(compactingFile);
+	}
+
+	/**
+	 * Moves the journal aside so new records start a fresh file, called right before a snapshot is taken
+	 *
+	 * @return A boolean showing whether the journal was rotated, false if a compaction is still running
+	 * @throws IOException If the journal can not be moved
+	 */
+	synchronized boolean rotate() throws IOException {
+		if (Files.exists(compactingFile))
+			return false;
+		if (Files.exists(journalFile))
+			Files.move(journalFile, compactingFile, StandardCopyOption.ATOMIC_MOVE);
+		journalRecords = 0;
+		return true;
+	}
+
+	/**
+	 * Checks whether a rotated journal was left behind by a compaction that did not finish
+	 *
+	 * @return A boolean showing whether the rotated journal exists
+	 */
+	boolean isCompacting() {
+		return Files.exists(compactingFile);
+	}
+
+	/**
+	 * Deletes the rotated journal once the snapshot holding its changes is safely on disk
+	 *
+	 * @throws IOException If the rotated journal can not be deleted
+	 */
+	void finishCompaction() throws IOException {
+		Files.deleteIfExists(compactingFile);
+	}
+
+	/**
+	 * Replays the rotated journal, if a compaction was interrupted, and then the current journal
+	 *
+	 * @param accounts The collection the records are applied to
+	 * @throws IOException If a journal can not be read
+	 */
+	void replay(SnakeAccountCollection accounts) throws IOException {
+		replay(compactingFile, accounts);
+		journalRecords = replay(journalFile, accounts);
+	}
+
+	/**
+	 * Applies every complete record of a journal file, a record cut off or garbled by a crash is
+	 * dropped together with everything after it
+	 *
+	 * @param file     The journal file
+	 * @param accounts The collection the records are applied to
+	 * @return The number of records applied
+	 * @throws IOException If the file can not be read or is not a journal
+	 */
+	private int replay(Path file, SnakeAccountCollection accounts) throws IOException {
+		if (!Files.exists(file) || Files.size(file) == 0)
+			return 0;
+		ByteBuffer in = AccountCodec.readFile(file);
+		AccountCodec.checkHeader(in, AccountCodec.JOURNAL_MAGIC, file);
+		int records = 0;
+		int validLength = in.position();
+		try {
+			while (in.hasRemaining()) {
+				byte type = in.get();
+				int end = AccountCodec.recordEnd(in);
+				if (type == AccountCodec.CREATE) {
+					String username = AccountCodec.readString(in);
+					accounts.applyCreate(username, AccountCodec.readString(in));
+				} else if (type == AccountCodec.HIGH_SCORE) {
+					String username = AccountCodec.readString(in);
+					accounts.applyHighScore(username, AccountCodec.readVarint(in));
+				} else if (type == AccountCodec.OVERALL_HIGH_SCORE) {
+					accounts.applyOverallHighScore(AccountCodec.readVarint(in));
+				}
+				// Records of unknown types come from a newer version and are skipped
+				in.position(end);
+				records++;
+				validLength = end;
+			}
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			// The last record was only partly written, or its bytes were garbled by the crash
+		}
+		if (validLength < in.limit()) {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				channel.truncate(validLength);
+			}
+		}
+		return records;
+	}
+}
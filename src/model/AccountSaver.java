@@ -0,0 +1,99 @@
+package model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Saves a SnakeAccountCollection on a background thread, so changing an account never waits for the disk
+ *
+ * Saves are requested after every change. While a save is queued further requests are folded
+ * into it, so a burst of changes is written together. The single worker thread only lives while
+ * there is work, which lets the program exit once everything is saved.
+ *
+ * @author Krish Sachdeva
+ */
+
+class AccountSaver {
+	private static final long IDLE_SECONDS = 1;
+
+	private final SnakeAccountCollection accounts;
+	private final ThreadPoolExecutor executor;
+	private final AtomicBoolean saveQueued;
+
+	/**
+	 * Creates a saver for a collection
+	 *
+	 * @param accounts The collection to be saved
+	 */
+	AccountSaver(SnakeAccountCollection accounts) {
+		this.accounts = accounts;
+		saveQueued = new AtomicBoolean();
+		executor = new ThreadPoolExecutor(0, 1, IDLE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				task -> new Thread(task, "account-saver"));
+	}
+
+	/**
+	 * Queues a save unless one is already waiting to run, returns right away
+	 */
+	void requestSave() {
+		if (executor.isShutdown() || !saveQueued.compareAndSet(false, true))
+			return;
+		executor.execute(() -> {
+			// Cleared first, so changes made while saving queue another save
+			saveQueued.set(false);
+			try {
+				accounts.save();
+			} catch (IOException | RuntimeException e) {
+				// Caught so the saver keeps running, a failed compaction is finished on the next start
+				e.printStackTrace();
+			}
+		});
+	}
+
+	/**
+	 * Saves every change made so far and waits until it is on disk, after close it waits for the last save
+	 *
+	 * @throws IOException          If the accounts can not be saved
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	void flush() throws IOException, InterruptedException {
+		if (executor.isShutdown()) {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			return;
+		}
+		try {
+			executor.submit(() -> {
+				try {
+					accounts.save();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}).get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof UncheckedIOException)
+				throw ((UncheckedIOException) e.getCause()).getCause();
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Queues a last save and stops accepting new ones, the worker finishes in the background
+	 */
+	void close() {
+		if (executor.isShutdown())
+			return;
+		executor.execute(() -> {
+			try {
+				accounts.save();
+			} catch (IOException | RuntimeException e) {
+				e.printStackTrace();
+			}
+		});
+		executor.shutdown();
+	}
+}
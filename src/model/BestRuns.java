@@ -0,0 +1,228 @@
+package model;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the highest scoring Replay of every player, for each board size, number of FoodPellets and speed
+ *
+ * A Ghost only lines up with a live game played with the same settings, so every combination
+ * has its own file, named after the player and the settings. Usernames are URL encoded so any
+ * name makes a valid file name.
+ *
+ * Finished games are offered at game over, on the thread drawing the game. Encoding a Replay
+ * plays the whole game again to build its Keyframes, so an offer only copies the Replay and a
+ * single background thread compares, encodes and writes it, the same way AccountSaver saves
+ * accounts. A save that fails is handed to the uncaught exception handler of that thread.
+ *
+ * A Ghost maps its file into memory, and Windows refuses to replace a file while it is mapped.
+ * Scores are compared by reading the file, not mapping it, and SnakeGame lets go of its Ghost at
+ * game over. The mapping is only released once the Ghost is collected, so a refused replace is
+ * tried again after asking for a collection.
+ *
+ * @author Brendan Bamberg
+ */
+
+public class BestRuns {
+    private static final String DIRECTORY = "replays";
+    private static final String EXTENSION = ".replay";
+    private static final long IDLE_SECONDS = 1;
+    private static final int REPLACE_ATTEMPTS = 5;
+    private static final long REPLACE_WAIT_MILLIS = 100;
+    
+    private final Path directory;
+    private final ThreadPoolExecutor executor;
+    
+    /**
+     * Create a BestRuns kept in the replays directory of the working directory
+     */
+    public BestRuns() {
+        this(Paths.get(DIRECTORY));
+    }
+    
+    /**
+     * Create a BestRuns kept in a given directory
+     *
+     * @param directory The directory holding the replay files, created when the first one is saved
+     */
+    public BestRuns(Path directory) {
+        this.directory = directory;
+        // The single worker only lives while there is work, which lets the program exit once everything is saved
+        executor = new ThreadPoolExecutor(0, 1, IDLE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                task -> new Thread(task, "best-run-saver"));
+    }
+    
+    /**
+     * Queue a finished game to be saved if it beats the best saved run of the player, returns right away
+     *
+     * @param username The username of the player
+     * @param replay   A finished Replay, copied so the game may go on changing it
+     */
+    public void offer(String username, Replay replay) {
+        if (replay.getFinalTick() < 0 || executor.isShutdown()) {
+            return;
+        }
+        Replay finished = replay.copy();
+        executor.execute(() -> {
+            try {
+                save(username, finished);
+            } catch (IOException e) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        });
+    }
+    
+    /**
+     * Wait until every game offered so far is saved or turned down
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        if (executor.isShutdown()) {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            return;
+        }
+        try {
+            executor.submit(() -> {
+                // Runs after every save queued before it
+            }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+    
+    /**
+     * Stop accepting games, the ones already offered are still saved in the background
+     */
+    public void close() {
+        executor.shutdown();
+    }
+    
+    /**
+     * Save a finished game if it beats the best saved run of the player with the same settings
+     *
+     * @param username The username of the player
+     * @param replay   A finished Replay
+     * @throws IOException If the file can not be written
+     */
+    private void save(String username, Replay replay) throws IOException {
+        Path file = fileFor(username, replay.getWidth(), replay.getHeight(), replay.getNumPellets(), replay.getInterval());
+        Replay best = readBest(file);
+        if (best != null && best.getFinalScore() >= replay.getFinalScore()) {
+            return;
+        }
+        // Written next to the old run and moved over it, so a crash never leaves half a file
+        Files.createDirectories(directory);
+        Path written = file.resolveSibling(file.getFileName() + ".tmp");
+        replay.write(written);
+        replace(written, file);
+    }
+    
+    /**
+     * Move a written run over the old one, waiting for a Ghost that is no longer used to let go of the old file
+     *
+     * @param written The file holding the new run
+     * @param file    The file of the best run
+     * @throws IOException If the old run can still not be replaced, the new one is deleted then
+     */
+    private static void replace(Path written, Path file) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Files.move(written, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return;
+            } catch (FileSystemException e) {
+                if (attempt == REPLACE_ATTEMPTS || !Files.exists(file)) {
+                    Files.deleteIfExists(written);
+                    throw e;
+                }
+            }
+            // Collecting the Ghost raced in the last game unmaps the old run
+            System.gc();
+            try {
+                Thread.sleep(REPLACE_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Files.deleteIfExists(written);
+                throw new IOException("interrupted while replacing " + file, e);
+            }
+        }
+    }
+    
+    /**
+     * Open the best saved run of a player as a Ghost, ready to race a new game with the same settings
+     *
+     * @param username   The username of the player
+     * @param width      An integer representing the width of the board
+     * @param height     An integer representing the height of the board
+     * @param numPellets An integer representing the number of FoodPellets on the board
+     * @param interval   A long representing the time between ticks in nanoseconds
+     * @return A Ghost at the start of the best run, or null if the player has none with these settings
+     * @throws IOException If the saved run can not be read
+     */
+    public Ghost openGhost(String username, int width, int height, int numPellets, long interval) throws IOException {
+        Path file = fileFor(username, width, height, numPellets, interval);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        ReplayFile replayFile = new ReplayFile(file);
+        Replay header = replayFile.getHeader();
+        if (header.getWidth() != width || header.getHeight() != height
+                || header.getNumPellets() != numPellets || header.getInterval() != interval) {
+            throw new IOException(file + " was recorded with other settings");
+        }
+        return new Ghost(replayFile);
+    }
+    
+    /**
+     * Get the file holding the best run of a player with some settings
+     *
+     * @param username   The username of the player
+     * @param width      An integer representing the width of the board
+     * @param height     An integer representing the height of the board
+     * @param numPellets An integer representing the number of FoodPellets on the board
+     * @param interval   A long representing the time between ticks in nanoseconds
+     * @return The Path of the file, which may not exist
+     */
+    public Path fileFor(String username, int width, int height, int numPellets, long interval) {
+        String name = URLEncoder.encode(username, StandardCharsets.UTF_8)
+                + "_" + width + "x" + height + "_" + numPellets + "_" + interval + EXTENSION;
+        return directory.resolve(name);
+    }
+    
+    /**
+     * Read the settings and result of a saved run, through a plain read so the file is not left mapped
+     *
+     * @param file The file of the run
+     * @return A Replay holding no inputs, or null if there is no readable run
+     */
+    private static Replay readBest(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer in = ByteBuffer.allocate(Replay.MAX_HEADER_SIZE);
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+                // A short file ends the header early, readHeader reports it as truncated
+            }
+            in.flip();
+            return Replay.readHeader(in);
+        } catch (IOException e) {
+            // A broken run is replaced by the new one
+            return null;
+        }
+    }
+}
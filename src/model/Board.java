@@ -2,78 +2,131 @@ package model;
 
 import java.util.ArrayList;
 
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Color;
-
 /**
- * Represents the game board of a game of Snake
+ * Represents the game board of a game of Snake, the Board only holds state and is drawn by
+ * view_controller.BoardRenderer
  *
  * @author Kayla Pierson
  */
 
 public class Board {
+    public static final int TILE_SIZE = 20;
+    
+    private static final byte WALL = (byte) 0x80;
+    private static final byte PELLET = 0x40;
+    private static final byte SEGMENTS = 0x3F;
+    
     private int width;
     private int height;
-    private Color backgroundColor;
+    private int columns;
+    private int rows;
+    // One byte per tile: the wall and pellet flags plus how many runs of the Snake's body cover the tile
+    private byte[] occupancy;
+    private FoodPellet[] pelletGrid;
+    private Tile[] tiles;
+    private CellSet freeCells;
+    // Tiles whose contents changed since the board was last drawn
+    private CellSet dirtyCells;
+    private int maxDirtyCells;
+    private boolean isFullRedraw;
     private ArrayList<FoodPellet> foodPellets;
-    private GraphicsContext gc;
+    // Sum of the StateHash keys of the tiles holding a FoodPellet
+    private long pelletHash;
     private Snake snake;
-    int TILE_SIZE = 20;
+    private GameRandom random;
+    private RewindBuffer rewindBuffer;
+    // Set while a RewindBuffer undoes a tick, it puts the free tiles back in their old order itself
+    private boolean isUndoing;
+    
+    /**
+     * Create a new game board with the specified size
+     *
+     * @param width      An integer representing the width of the board
+     * @param height     An integer representing the height of the board
+     * @param numPellets An integer representing the number of FoodPellets on the board
+     * @param snake      A Snake object representing the player
+     */
+    public Board(int width, int height, int numPellets, Snake snake) {
+        this(width, height, numPellets, snake, new GameRandom());
+    }
     
     /**
-     * Create a new game board with the specified size and background color
+     * Create a new game board with the specified size whose FoodPellets are placed by a given GameRandom
      *
-     * @param width           An integer representing the width of the board
-     * @param height          An integer representing the height of the board
-     * @param backgroundColor A Color representing the color of the board
-     * @param gc              A GraphicsContext used to draw the game board
-     * @param snake           A Snake object representing the player
+     * @param width      An integer representing the width of the board
+     * @param height     An integer representing the height of the board
+     * @param numPellets An integer representing the number of FoodPellets on the board
+     * @param snake      A Snake object representing the player
+     * @param random     The GameRandom that makes every random choice of the game
      */
-    public Board(int width, int height, int numPellets, Color backgroundColor, GraphicsContext gc, Snake snake) {
-        this.gc = gc;
+    public Board(int width, int height, int numPellets, Snake snake, GameRandom random) {
         this.width = width;
         this.height = height;
-        this.backgroundColor = backgroundColor;
         this.snake = snake;
+        this.random = random;
+        columns = Math.floorDiv(width, TILE_SIZE);
+        rows = Math.floorDiv(height, TILE_SIZE);
+        occupancy = new byte[columns * rows];
+        pelletGrid = new FoodPellet[columns * rows];
+        tiles = new Tile[columns * rows];
+        freeCells = new CellSet(columns * rows);
+        dirtyCells = new CellSet(columns * rows);
+        maxDirtyCells = Math.max(1, columns * rows / 4);
+        isFullRedraw = true;
+        markWalls();
+        snake.setBoard(this);
         foodPellets = new ArrayList<>();
         initialize(numPellets);
     }
     
     /**
-     * Set up the board by drawing the background color and spawn in the first FoodPellet
+     * Set up the board by spawning in the first FoodPellets
      */
     public void initialize(int numPellets) {
-        gc.setFill(backgroundColor);
-        gc.fillRect(0, 0, width, height);
-        
         // spawn 5 random food pellets - adjust number if not enough/too much
         for (int i = 0; i < numPellets; i++) {
             spawnFoodPellet(numPellets);
         }
     }
     
+    /**
+     * Flag the outermost ring of tiles as walls and every other tile as free
+     */
+    private void markWalls() {
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                if (x == 0 || y == 0 || x == columns - 1 || y == rows - 1)
+                    occupancy[y * columns + x] = WALL;
+                else
+                    freeCells.add(y * columns + x);
+            }
+        }
+    }
+    
     /**
      * Create a new FoodPellet and spawn it on the board
      */
     public void spawnFoodPellet(int numPellets) {
-        FoodPellet pellet = new FoodPellet(width, height, numPellets == 1, gc);
+        FoodPellet pellet = new FoodPellet(this, numPellets == 1);
         foodPellets.add(pellet);
     }
     
     /**
-     * Redraw the game board, FoodPellet, and Snake
+     * Get the Snake playing on the board
+     *
+     * @return A Snake object representing the player
      */
-    public void update() {
-        gc.setFill(backgroundColor);
-        gc.fillRect(0, 0, width, height);
-        
-        for (FoodPellet pellet : foodPellets)
-            pellet.draw();
-        
-        snake.draw(gc);
-        
-        gc.setStroke(Color.WHITE);
-        gc.strokeLine(0, 0, width, 0);
+    public Snake getSnake() {
+        return snake;
+    }
+    
+    /**
+     * Get the random number generator of the board
+     *
+     * @return The GameRandom that places FoodPellets and rolls power ups
+     */
+    public GameRandom getRandom() {
+        return random;
     }
     
     /**
@@ -109,19 +162,372 @@ public class Board {
      * @return True if the Snake has hit the walls of the board or itself, False otherwise
      */
     public boolean isCollision() {
-        Tile head = snake.getHead();
-        int tileWidth = Math.floorDiv(width, TILE_SIZE);
-        int tileHeight = Math.floorDiv(height, TILE_SIZE);
-        
-        // collided with walls
-        if (head.getTileX() <= 0 || head.getTileX() >= tileWidth-1 || head.getTileY() <= 0 
-        	|| head.getTileY() >= tileHeight-1)
+        int index = indexOf(snake.getHeadCell());
+        if (index < 0)
             return true;
         
-        // collided with its own body
-        if (snake.hasCollidedWithSelf())
-            return true;
-        
-        return false;
+        // collided with walls or with its own body
+        byte tile = occupancy[index];
+        return (tile & WALL) != 0 || (tile & SEGMENTS) > 1;
+    }
+    
+    /**
+     * Get the width of the board in tiles
+     *
+     * @return An integer representing the number of columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+    
+    /**
+     * Get the height of the board in tiles
+     *
+     * @return An integer representing the number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+    
+    /**
+     * Get the shared Tile object for a square of the board
+     *
+     * The Tile is created the first time it is asked for and reused after that, so lookups
+     * during a game never allocate
+     *
+     * @param cell A packed cell created by {@link Tile#pack(int, int)}
+     * @return The Tile for the square
+     */
+    public Tile getTile(int cell) {
+        int index = indexOf(cell);
+        if (index < 0)
+            return new Tile(Tile.unpackX(cell) * TILE_SIZE, Tile.unpackY(cell) * TILE_SIZE);
+        Tile tile = tiles[index];
+        if (tile == null) {
+            tile = new Tile(Tile.unpackX(cell) * TILE_SIZE, Tile.unpackY(cell) * TILE_SIZE);
+            tiles[index] = tile;
+        }
+        return tile;
+    }
+    
+    /**
+     * Checks whether a tile is inside the walls and not covered by the Snake or a FoodPellet
+     *
+     * @param tileX The column of the tile
+     * @param tileY The row of the tile
+     * @return True if nothing occupies the tile, False otherwise
+     */
+    public boolean isCellFree(int tileX, int tileY) {
+        if (tileX < 0 || tileX >= columns || tileY < 0 || tileY >= rows)
+            return false;
+        return occupancy[tileY * columns + tileX] == 0;
+    }
+    
+    /**
+     * Checks whether every tile inside the walls is taken by the Snake or a FoodPellet
+     *
+     * @return True if no free tile is left, False otherwise
+     */
+    public boolean isFull() {
+        return freeCells.size() == 0;
+    }
+    
+    /**
+     * Get the free tiles in the order randomFreeCell picks from, which depends on the history of
+     * the board and is saved so a restored game places FoodPellets on the same tiles
+     *
+     * @return A new array of tile indexes, which count row by row from the top left
+     */
+    int[] getFreeCellOrder() {
+        int[] order = new int[freeCells.size()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = freeCells.get(i);
+        return order;
+    }
+    
+    /**
+     * Put the free tiles back in a saved order, after the Snake and FoodPellets have been restored
+     *
+     * @param order Tile indexes returned by getFreeCellOrder
+     */
+    void restoreFreeCellOrder(int[] order) {
+        if (order.length != freeCells.size())
+            throw new IllegalStateException("saved free tiles do not match the board");
+        freeCells.clear();
+        for (int index : order) {
+            if (index < 0 || index >= occupancy.length || occupancy[index] != 0)
+                throw new IllegalStateException("saved free tile " + index + " is not free");
+            freeCells.add(index);
+        }
+    }
+    
+    /**
+     * Pick a free tile uniformly at random
+     *
+     * @return A packed cell created by {@link Tile#pack(int, int)}, or -1 if the board is full
+     */
+    public int randomFreeCell() {
+        if (freeCells.size() == 0)
+            return -1;
+        int index = freeCells.get(random.nextInt(freeCells.size()));
+        return Tile.pack(index % columns, index / columns);
+    }
+    
+    /**
+     * Get the FoodPellet lying on a tile
+     *
+     * @param cell A packed cell created by {@link Tile#pack(int, int)}
+     * @return The FoodPellet on the tile, or null if there is none
+     */
+    public FoodPellet getPelletAt(int cell) {
+        int index = indexOf(cell);
+        return index < 0 ? null : pelletGrid[index];
+    }
+    
+    /**
+     * Record that a FoodPellet has been placed on a tile
+     *
+     * @param cell   A packed cell created by {@link Tile#pack(int, int)}
+     * @param pellet The FoodPellet placed on the tile
+     */
+    void placePellet(int cell, FoodPellet pellet) {
+        int index = indexOf(cell);
+        occupancy[index] |= PELLET;
+        pelletGrid[index] = pellet;
+        pelletHash += StateHash.pelletKey(cell);
+        takeFreeCell(index);
+        markDirtyIndex(index);
+    }
+    
+    /**
+     * Get the hash of the tiles holding a FoodPellet, updated in O(1) whenever a FoodPellet is placed or removed
+     *
+     * @return A long that is the same for any two Boards with FoodPellets on the same tiles
+     */
+    long getPelletHash() {
+        return pelletHash;
+    }
+    
+    /**
+     * Record that a FoodPellet has left a tile
+     *
+     * @param cell A packed cell created by {@link Tile#pack(int, int)}
+     */
+    void removePellet(int cell) {
+        int index = indexOf(cell);
+        occupancy[index] &= ~PELLET;
+        pelletGrid[index] = null;
+        pelletHash -= StateHash.pelletKey(cell);
+        if (occupancy[index] == 0)
+            releaseFreeCell(index);
+        markDirtyIndex(index);
+    }
+    
+    /**
+     * Take a tile out of the free tiles, telling the RewindBuffer where it was so it can be put back
+     *
+     * @param index The index of the tile on the board
+     */
+    private void takeFreeCell(int index) {
+        if (isUndoing || !freeCells.contains(index))
+            return;
+        if (rewindBuffer != null)
+            rewindBuffer.cellTaken(index, freeCells.positionOf(index));
+        freeCells.remove(index);
+    }
+    
+    /**
+     * Add a tile to the free tiles, telling the RewindBuffer so it can be taken out again
+     *
+     * @param index The index of the tile on the board
+     */
+    private void releaseFreeCell(int index) {
+        if (isUndoing || freeCells.contains(index))
+            return;
+        if (rewindBuffer != null)
+            rewindBuffer.cellFreed(index);
+        freeCells.add(index);
+    }
+    
+    /**
+     * Put a tile taken by takeFreeCell back at its old position, while a tick is undone
+     *
+     * @param index    The index of the tile on the board
+     * @param position The position the tile had in the free tiles
+     */
+    void restoreFreeCell(int index, int position) {
+        freeCells.restore(index, position);
+    }
+    
+    /**
+     * Take out a tile added by releaseFreeCell, while a tick is undone
+     *
+     * @param index The index of the tile on the board, the last one added to the free tiles
+     */
+    void unreleaseFreeCell(int index) {
+        freeCells.remove(index);
+    }
+    
+    /**
+     * Get the RewindBuffer recording the changes made to the board
+     *
+     * @return The RewindBuffer, or null if the game can not be rewound
+     */
+    RewindBuffer getRewindBuffer() {
+        return rewindBuffer;
+    }
+    
+    /**
+     * Record every change made to the board in a RewindBuffer
+     *
+     * @param rewindBuffer The RewindBuffer, or null to stop recording
+     */
+    void setRewindBuffer(RewindBuffer rewindBuffer) {
+        this.rewindBuffer = rewindBuffer;
+    }
+    
+    /**
+     * Set whether a tick is being undone, while it is the free tiles are left alone
+     *
+     * @param isUndoing A boolean representing whether a RewindBuffer is undoing a tick
+     */
+    void setUndoing(boolean isUndoing) {
+        this.isUndoing = isUndoing;
+    }
+    
+    /**
+     * Get how many separate runs of the Snake's body cover a tile
+     *
+     * @param cell A packed cell created by {@link Tile#pack(int, int)}
+     * @return An integer that is greater than 1 only if the Snake overlaps itself
+     */
+    int segmentsAt(int cell) {
+        int index = indexOf(cell);
+        return index < 0 ? 0 : occupancy[index] & SEGMENTS;
+    }
+    
+    /**
+     * Record that the Snake's body has entered a tile
+     *
+     * @param cell A packed cell created by {@link Tile#pack(int, int)}
+     */
+    void enterCell(int cell) {
+        int index = indexOf(cell);
+        if (index >= 0) {
+            if (occupancy[index] == 0)
+                takeFreeCell(index);
+            occupancy[index]++;
+            markDirtyIndex(index);
+        }
+    }
+    
+    /**
+     * Record that the Snake's body has left a tile
+     *
+     * @param cell A packed cell created by {@link Tile#pack(int, int)}
+     */
+    void leaveCell(int cell) {
+        int index = indexOf(cell);
+        if (index >= 0) {
+            occupancy[index]--;
+            if (occupancy[index] == 0)
+                releaseFreeCell(index);
+            markDirtyIndex(index);
+        }
+    }
+    
+    /**
+     * Get whether the Snake's body covers a tile
+     *
+     * @param cell A packed cell created by {@link Tile#pack(int, int)}
+     * @return True if a segment of the Snake is on the tile, False otherwise
+     */
+    public boolean isSnakeAt(int cell) {
+        return segmentsAt(cell) > 0;
+    }
+    
+    /**
+     * Record that a tile has to be redrawn, for example because a FoodPellet or the Snake moved
+     *
+     * @param cell A packed cell created by {@link Tile#pack(int, int)}, tiles outside the board are ignored
+     */
+    public void markDirty(int cell) {
+        int index = indexOf(cell);
+        if (index >= 0)
+            markDirtyIndex(index);
+    }
+    
+    /**
+     * Record that a tile has to be redrawn, switching to a full redraw once too many tiles changed
+     *
+     * @param index The index of the tile in the occupancy grid
+     */
+    private void markDirtyIndex(int index) {
+        if (isFullRedraw)
+            return;
+        if (dirtyCells.size() >= maxDirtyCells) {
+            markAllDirty();
+            return;
+        }
+        dirtyCells.add(index);
+    }
+    
+    /**
+     * Record that the whole board has to be redrawn, for example after a restart or resize
+     */
+    public void markAllDirty() {
+        isFullRedraw = true;
+        dirtyCells.clear();
+    }
+    
+    /**
+     * Get whether the whole board has to be redrawn instead of only the dirty tiles
+     *
+     * @return True if the whole board has to be redrawn, False otherwise
+     */
+    public boolean isFullRedraw() {
+        return isFullRedraw;
+    }
+    
+    /**
+     * Get the number of tiles that changed since the board was last drawn
+     *
+     * @return An integer representing the number of dirty tiles
+     */
+    public int getDirtyCount() {
+        return dirtyCells.size();
+    }
+    
+    /**
+     * Get one of the tiles that changed since the board was last drawn
+     *
+     * @param position An integer from 0 up to but not including getDirtyCount()
+     * @return A packed cell created by {@link Tile#pack(int, int)}
+     */
+    public int getDirtyCell(int position) {
+        int index = dirtyCells.get(position);
+        return Tile.pack(index % columns, index / columns);
+    }
+    
+    /**
+     * Forget the changed tiles once the board has been drawn
+     */
+    public void clearDirty() {
+        isFullRedraw = false;
+        dirtyCells.clear();
+    }
+    
+    /**
+     * Convert a packed cell into an index of the occupancy grid
+     *
+     * @param cell A packed cell created by {@link Tile#pack(int, int)}
+     * @return The index of the tile, or -1 if it lies outside the board
+     */
+    private int indexOf(int cell) {
+        int x = Tile.unpackX(cell);
+        int y = Tile.unpackY(cell);
+        if (x < 0 || x >= columns || y < 0 || y >= rows)
+            return -1;
+        return y * columns + x;
     }
 }
@@ -0,0 +1,121 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A set of board tiles that supports constant time insert, remove and random access
+ *
+ * @author Kayla Pierson
+ */
+
+public class CellSet {
+    private int[] cells;
+    private int[] positions;
+    private int size;
+    
+    /**
+     * Create an empty set able to hold the tiles of a board
+     *
+     * @param capacity An integer representing the number of tiles on the board
+     */
+    public CellSet(int capacity) {
+        cells = new int[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, -1);
+        size = 0;
+    }
+    
+    /**
+     * Add a tile to the set if it is not already present
+     *
+     * @param index The index of the tile on the board
+     */
+    public void add(int index) {
+        if (positions[index] >= 0)
+            return;
+        cells[size] = index;
+        positions[index] = size;
+        size++;
+    }
+    
+    /**
+     * Remove a tile from the set by moving the last tile into its place
+     *
+     * @param index The index of the tile on the board
+     */
+    public void remove(int index) {
+        int position = positions[index];
+        if (position < 0)
+            return;
+        size--;
+        int last = cells[size];
+        cells[position] = last;
+        positions[last] = position;
+        positions[index] = -1;
+    }
+    
+    /**
+     * Put a tile back at the position it was removed from, undoing the last change made to the set
+     *
+     * @param index    The index of the tile on the board
+     * @param position The position the tile had before it was removed
+     */
+    public void restore(int index, int position) {
+        if (position < size) {
+            int moved = cells[position];
+            cells[size] = moved;
+            positions[moved] = size;
+        }
+        cells[position] = index;
+        positions[index] = position;
+        size++;
+    }
+    
+    /**
+     * Get the position of a tile in the set
+     *
+     * @param index The index of the tile on the board
+     * @return An integer from 0 up to but not including size(), or -1 if the tile is not in the set
+     */
+    public int positionOf(int index) {
+        return positions[index];
+    }
+    
+    /**
+     * Check whether a tile is in the set
+     *
+     * @param index The index of the tile on the board
+     * @return True if the tile is in the set, False otherwise
+     */
+    public boolean contains(int index) {
+        return positions[index] >= 0;
+    }
+    
+    /**
+     * Get the tile stored at a position of the set, used for uniform sampling
+     *
+     * @param position An integer from 0 up to but not including size()
+     * @return The index of the tile on the board
+     */
+    public int get(int position) {
+        return cells[position];
+    }
+    
+    /**
+     * Remove every tile from the set, this takes time proportional to the size of the set
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++)
+            positions[cells[i]] = -1;
+        size = 0;
+    }
+    
+    /**
+     * Get the number of tiles in the set
+     *
+     * @return An integer representing the size of the set
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -2,14 +2,9 @@ package model;
 
 import javafx.scene.text.Font;
 
-import java.awt.*;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-
 public class CustomFont {
     
     Font customFont;
-    FileInputStream fontInputStream;
     
     /**
      * Creates a new custom font with the specified font size
@@ -17,16 +12,11 @@ public class CustomFont {
      * @param size An integer representing the font size
      */
     public CustomFont(int size) {
-        try {
-            fontInputStream = new FileInputStream("resources/Emulogic-zrEw.ttf");
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
-        }
-        customFont = Font.loadFont(fontInputStream, size);
+        customFont = FontCache.get(size);
     }
     
     public void setFontSize(int size) {
-        customFont = Font.loadFont(fontInputStream, size);
+        customFont = FontCache.get(size);
     }
     
     public Font getCustomFont() {
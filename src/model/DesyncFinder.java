@@ -0,0 +1,94 @@
+package model;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Finds the first tick where two runs of a game stopped agreeing, by binary search over their HashTraces
+ *
+ * The state of two runs can differ for a while and then match again, for example when the Snakes
+ * take different turns to the same tile without eating, so the state hashes alone can not be
+ * bisected. A HashTrace chains every state hash into the entry before it, so once two traces
+ * differ they differ on every tick after it. That makes the ticks where the entries match a
+ * prefix, and the first differing tick is found in O(log n) comparisons.
+ *
+ * Usage from the command line:
+ *   DesyncFinder a b              compare two runs, each a replay file played now or a hash trace
+ *   DesyncFinder --trace in out   play a replay file and write its hash trace, to compare across builds
+ *
+ * @author Brendan Bamberg
+ */
+
+public class DesyncFinder {
+    
+    private DesyncFinder() {
+    }
+    
+    /**
+     * Find the first tick where two runs disagree
+     *
+     * @param first  The HashTrace of one run
+     * @param second The HashTrace of the other run
+     * @return The first tick whose hashes differ, the length of the shorter trace if it is a prefix
+     *         of the longer one, or -1 if the traces are the same
+     */
+    public static long firstDivergence(HashTrace first, HashTrace second) {
+        int common = Math.min(first.length(), second.length());
+        // Every tick below low matches, high is a tick known to differ or the end of the common part
+        int low = 0;
+        int high = common;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (first.get(middle) == second.get(middle)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        if (low == common && first.length() == second.length()) {
+            return -1;
+        }
+        return low;
+    }
+    
+    /**
+     * Get the HashTrace of a run from a file
+     *
+     * @param file A hash trace written by {@link HashTrace#write(Path)}, or a replay file to be played now
+     * @return The HashTrace of the run
+     * @throws IOException If the file can not be read
+     */
+    private static HashTrace load(Path file) throws IOException {
+        if (HashTrace.isHashTrace(file)) {
+            return HashTrace.read(file);
+        }
+        return HashTrace.record(Replay.read(file));
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("--trace")) {
+            HashTrace trace = HashTrace.record(Replay.read(Paths.get(args[1])));
+            trace.write(Paths.get(args[2]));
+            System.out.println("Wrote " + trace.length() + " hashes to " + args[2]);
+            return;
+        }
+        if (args.length != 2) {
+            System.err.println("Usage: DesyncFinder <run> <run>");
+            System.err.println("       DesyncFinder --trace <replay> <trace>");
+            System.exit(2);
+        }
+        HashTrace first = load(Paths.get(args[0]));
+        HashTrace second = load(Paths.get(args[1]));
+        long tick = firstDivergence(first, second);
+        if (tick < 0) {
+            System.out.println("Runs match on all " + first.length() + " ticks");
+        } else if (tick >= first.length() || tick >= second.length()) {
+            System.out.println("Runs match until tick " + tick + ", where one of them ends");
+            System.exit(1);
+        } else {
+            System.out.printf("Runs diverge at tick %d: %016x vs %016x%n", tick, first.get(tick), second.get(tick));
+            System.exit(1);
+        }
+    }
+}
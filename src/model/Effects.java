@@ -0,0 +1,78 @@
+package model;
+
+/**
+ * Keeps track of the timed effects active in a game, such as the power up
+ *
+ * Durations are counted in ticks and only run down when the GameEngine steps, so effects stop
+ * while the game is paused and play out the same way every time. Each kind of effect has its
+ * own counter, so several can be active at once.
+ *
+ * @author Vannela Chatla and Sameeka Maroli
+ */
+
+public class Effects {
+    private static final int NUM_TYPES = Type.values().length;
+    
+    private final int[] remaining = new int[NUM_TYPES];
+    
+    /**
+     * Start an effect, or restart it if it is already active and would end sooner
+     *
+     * @param type  The Type of effect to start
+     * @param ticks An integer representing how many ticks the effect lasts
+     */
+    public void start(Type type, int ticks) {
+        int index = type.ordinal();
+        remaining[index] = Math.max(remaining[index], ticks);
+    }
+    
+    /**
+     * End an effect early
+     *
+     * @param type The Type of effect to end
+     */
+    public void stop(Type type) {
+        remaining[type.ordinal()] = 0;
+    }
+    
+    /**
+     * Get whether an effect is active
+     *
+     * @param type The Type of effect
+     * @return True if the effect has ticks remaining, False otherwise
+     */
+    public boolean isActive(Type type) {
+        return remaining[type.ordinal()] > 0;
+    }
+    
+    /**
+     * Get how long an effect has left
+     *
+     * @param type The Type of effect
+     * @return An integer representing the number of ticks remaining, 0 if the effect is not active
+     */
+    public int getRemaining(Type type) {
+        return remaining[type.ordinal()];
+    }
+    
+    /**
+     * Run every active effect down by one tick
+     */
+    public void tick() {
+        for (int i = 0; i < NUM_TYPES; i++) {
+            if (remaining[i] > 0) {
+                remaining[i]--;
+            }
+        }
+    }
+    
+    /**
+     * The kinds of timed effects
+     */
+    public enum Type {
+        /**
+         * Pulls in every FoodPellet near the head of the Snake
+         */
+        POWER_UP
+    }
+}
@@ -0,0 +1,86 @@
+package model;
+
+/**
+ * Decides how many ticks of a game are due each frame so the game runs at a fixed rate
+ *
+ * The time between frames is added to an accumulator and one tick is run for every whole
+ * interval in it, the remainder is carried over to the next frame so no time is lost. After a
+ * long stall only a limited number of ticks are caught up at once, the rest are dropped and
+ * counted, so a slow frame cannot cause an ever growing backlog of ticks.
+ *
+ * @author Vannela Chatla and Sameeka Maroli
+ */
+
+public class FixedTimestep {
+    private final long interval;
+    private final int maxTicksPerFrame;
+    
+    private boolean isStarted;
+    private long lastFrame;
+    private long accumulator;
+    private long droppedTicks;
+    
+    /**
+     * Create a new FixedTimestep
+     *
+     * @param interval         A long representing the time between ticks in nanoseconds
+     * @param maxTicksPerFrame An integer representing the most ticks run in a single frame
+     */
+    public FixedTimestep(long interval, int maxTicksPerFrame) {
+        if (interval <= 0 || maxTicksPerFrame <= 0)
+            throw new IllegalArgumentException("interval and maxTicksPerFrame must be positive");
+        this.interval = interval;
+        this.maxTicksPerFrame = maxTicksPerFrame;
+        reset();
+    }
+    
+    /**
+     * Forget any time measured so far, the next frame starts counting again
+     */
+    public void reset() {
+        isStarted = false;
+        accumulator = 0;
+    }
+    
+    /**
+     * Record a new frame and get the number of ticks that are due
+     *
+     * @param now A long representing the time of the frame in nanoseconds
+     * @return An integer from 0 up to maxTicksPerFrame
+     */
+    public int advance(long now) {
+        if (!isStarted) {
+            isStarted = true;
+            lastFrame = now;
+            return 0;
+        }
+        accumulator += Math.max(0, now - lastFrame);
+        lastFrame = now;
+        
+        long due = accumulator / interval;
+        accumulator -= due * interval;
+        if (due > maxTicksPerFrame) {
+            droppedTicks += due - maxTicksPerFrame;
+            return maxTicksPerFrame;
+        }
+        return (int) due;
+    }
+    
+    /**
+     * Get the number of ticks that were skipped because too many were due at once
+     *
+     * @return A long representing the total number of dropped ticks
+     */
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+    
+    /**
+     * Get the time between ticks
+     *
+     * @return A long representing the interval in nanoseconds
+     */
+    public long getInterval() {
+        return interval;
+    }
+}
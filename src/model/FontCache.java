@@ -0,0 +1,80 @@
+package model;
+
+import javafx.scene.text.Font;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads the game's font file once and hands out one shared Font per size
+ *
+ * The file is read from disk the first time any size is asked for, every size after that is
+ * parsed from the bytes in memory and kept, so menus and the game over screen never go back to
+ * the disk.
+ *
+ * @author Sameeka Maroli
+ */
+
+public class FontCache {
+    private static final String FONT_PATH = "resources/Emulogic-zrEw.ttf";
+    
+    /**
+     * Font sizes used by the menus and the game, loaded by warmUp()
+     */
+    public static final int[] COMMON_SIZES = {12, 14, 15, 16, 18, 20, 24, 36, 40, 48};
+    
+    private static final Map<Integer, Font> FONTS = new ConcurrentHashMap<>();
+    private static byte[] fontBytes;
+    
+    private FontCache() {
+    }
+    
+    /**
+     * Get the game's font at a given size
+     *
+     * @param size An integer representing the font size
+     * @return A Font shared by every caller asking for the same size
+     */
+    public static Font get(int size) {
+        return FONTS.computeIfAbsent(size, FontCache::load);
+    }
+    
+    /**
+     * Load the font at every common size ahead of time, so the first menu shown does not wait for it
+     */
+    public static void warmUp() {
+        for (int size : COMMON_SIZES)
+            get(size);
+    }
+    
+    /**
+     * Parse the font at a given size from the cached file contents
+     *
+     * @param size An integer representing the font size
+     * @return A new Font object
+     */
+    private static Font load(int size) {
+        return Font.loadFont(new ByteArrayInputStream(fontBytes()), size);
+    }
+    
+    /**
+     * Get the contents of the font file, reading it on the first call
+     *
+     * @return The bytes of the TTF file
+     */
+    private static synchronized byte[] fontBytes() {
+        if (fontBytes == null) {
+            try {
+                fontBytes = Files.readAllBytes(Paths.get(FONT_PATH));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return fontBytes;
+    }
+}
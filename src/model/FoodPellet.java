@@ -1,10 +1,5 @@
 package model;
 
-import java.util.Random;
-
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Color;
-
 /**
  * Represents a Food Pellet to be eaten by a player in a game of Snake
  *
@@ -14,11 +9,15 @@ import javafx.scene.paint.Color;
 public class FoodPellet {
     private static int TILE_SIZE = 20;
     private static int POWER_UP_CHANCE = 10;
+    public static final int NUM_COLORS = 7;
     
-    private Color color;
+    private int colorIndex;
     private Tile currentTile;
-    private GraphicsContext gc;  // This is used only for drawing
-    private Color[] pelletColors = {Color.RED, Color.ORANGE, Color.YELLOW, Color.CYAN, Color.BLUE, Color.PINK, Color.PURPLE};
+    private int currentCell;
+    private Board board;
+    // The position of the FoodPellet in the list of its Board
+    private int index;
+    private GameRandom random;
     
     private boolean isEaten = false;
     private boolean isWhite;
@@ -29,17 +28,34 @@ public class FoodPellet {
      *
      * @param boardWidth  An integer representing the board width
      * @param boardHeight An integer representing the board height
-     * @param gc          A GraphicsContext used to draw the FoodPellet
+     * @param isWhite     A boolean representing whether the FoodPellet is always white
      */
-    public FoodPellet(int boardWidth, int boardHeight, boolean isWhite, GraphicsContext gc) {
-        this.gc = gc;
+    public FoodPellet(int boardWidth, int boardHeight, boolean isWhite) {
         this.isWhite = isWhite;
+        this.random = new GameRandom();
         isEaten = false;
         isPowerUp = false;
         spawn(boardWidth, boardHeight, true);
     }
     
+    /**
+     * Create a new FoodPellet object on one of the free tiles of a Board
+     *
+     * @param board   The Board the FoodPellet is placed on
+     * @param isWhite A boolean representing whether the FoodPellet is always white
+     */
+    public FoodPellet(Board board, boolean isWhite) {
+        this.board = board;
+        this.index = board.getFoodPellets().size();
+        this.random = board.getRandom();
+        this.isWhite = isWhite;
+        isEaten = false;
+        isPowerUp = false;
+        spawn(true);
+    }
+    
     public FoodPellet(int boardWidth, int boardHeight) {
+        this.random = new GameRandom();
         spawn(boardWidth, boardHeight, true);
     }
     
@@ -51,9 +67,40 @@ public class FoodPellet {
      * @param canPowerUp A boolean representing whether the FoodPellet can be a power up
      */
     public void spawn(int boardWidth, int boardHeight, boolean canPowerUp) {
-        Random random = new Random();
-        int index;
+        rollAppearance(canPowerUp);
         
+        int x = random.nextInt(boardWidth - (3 * TILE_SIZE));
+        int y = random.nextInt(boardHeight - (3 * TILE_SIZE));
+        
+        currentTile = new Tile(x + TILE_SIZE, y + TILE_SIZE);
+    }
+    
+    /**
+     * Spawn the FoodPellet on a free tile of its Board, picked uniformly at random
+     *
+     * @param canPowerUp A boolean representing whether the FoodPellet can be a power up
+     * @return True if the FoodPellet was placed, False if the board has no free tile left
+     */
+    public boolean spawn(boolean canPowerUp) {
+        rollAppearance(canPowerUp);
+        
+        int cell = board.randomFreeCell();
+        if (cell < 0) {
+            currentTile = null;
+            return false;
+        }
+        currentCell = cell;
+        currentTile = board.getTile(cell);
+        board.placePellet(cell, this);
+        return true;
+    }
+    
+    /**
+     * Decide whether the FoodPellet is a power up and pick its color
+     *
+     * @param canPowerUp A boolean representing whether the FoodPellet can be a power up
+     */
+    private void rollAppearance(boolean canPowerUp) {
         // One in ten chance of being a power up
         if (canPowerUp) {
             int determinePowerUp = random.nextInt(POWER_UP_CHANCE);
@@ -62,28 +109,10 @@ public class FoodPellet {
             isPowerUp = false;
         }
         
-        if (isWhite) {
-            this.color = Color.WHITE;
-        } else {
-            index = random.nextInt(pelletColors.length); // corrected to use the length of the array
-            this.color = pelletColors[index];
-        }
-        if (isPowerUp) {
-            this.color = Color.GOLD;
+        // White and power up pellets ignore the color index when they are drawn
+        if (!isWhite) {
+            colorIndex = random.nextInt(NUM_COLORS);
         }
-        
-        int x = random.nextInt(boardWidth - (3 * TILE_SIZE));
-        int y = random.nextInt(boardHeight - (3 * TILE_SIZE));
-        
-        currentTile = new Tile(x + TILE_SIZE, y + TILE_SIZE);
-    }
-    
-    /**
-     * Draw the FoodPellet at the current location on the board
-     */
-    public void draw() {
-        gc.setFill(color);
-        gc.fillRect(currentTile.getTileX() * TILE_SIZE, currentTile.getTileY() * TILE_SIZE, TILE_SIZE, TILE_SIZE);
     }
     
     /**
@@ -95,6 +124,11 @@ public class FoodPellet {
      * @param snake A Snake object representing the player
      */
     public void respawn(int boardWidth, int boardHeight, boolean canPowerUp, Snake snake) {
+        if (board != null) {
+            respawn(canPowerUp);
+            return;
+        }
+        
         Tile oldTile = new Tile(currentTile.getTileX(), currentTile.getTileY());
         do {
             spawn(boardWidth, boardHeight, canPowerUp);
@@ -102,6 +136,63 @@ public class FoodPellet {
         isEaten = false;
     }
     
+    /**
+     * Move the FoodPellet to a different free tile of its Board and set its status to no longer be eaten
+     *
+     * @param canPowerUp A boolean representing whether the FoodPellet can be a power up
+     * @return True if the FoodPellet was placed, False if the board has no free tile left
+     */
+    public boolean respawn(boolean canPowerUp) {
+        int oldCell = currentCell;
+        boolean wasPlaced = currentTile != null;
+        if (board.getRewindBuffer() != null) {
+            board.getRewindBuffer().pelletMoved(index, getCell(), colorIndex, isPowerUp);
+        }
+        // The old tile is still marked, so the new one is always different
+        boolean placed = spawn(canPowerUp);
+        if (wasPlaced)
+            board.removePellet(oldCell);
+        if (placed)
+            isEaten = false;
+        return placed;
+    }
+    
+    /**
+     * Take the FoodPellet off its Board, used before the pellets of a saved game are put back
+     */
+    void removeFromBoard() {
+        if (currentTile != null) {
+            board.removePellet(currentCell);
+            currentTile = null;
+        }
+    }
+    
+    /**
+     * Put the FoodPellet back on its Board as it was in a saved game, after removeFromBoard
+     *
+     * @param cell       A packed cell created by {@link Tile#pack(int, int)}, or -1 to leave it off the board
+     * @param colorIndex An integer from 0 up to but not including NUM_COLORS
+     * @param isPowerUp  A boolean representing whether the FoodPellet is a power up
+     */
+    void restore(int cell, int colorIndex, boolean isPowerUp) {
+        this.colorIndex = colorIndex;
+        this.isPowerUp = isPowerUp;
+        isEaten = false;
+        if (cell >= 0) {
+            currentCell = cell;
+            currentTile = board.getTile(cell);
+            board.placePellet(cell, this);
+        }
+    }
+    
+    /**
+     * Get the packed cell the FoodPellet lies on
+     *
+     * @return A packed cell created by {@link Tile#pack(int, int)}, or -1 if it is not on the board
+     */
+    int getCell() {
+        return currentTile == null ? -1 : currentCell;
+    }
     
     /**
      * Detect collision with the head of the Snake
@@ -135,6 +226,24 @@ public class FoodPellet {
         return isPowerUp;
     }
     
+    /**
+     * Get whether the FoodPellet is always white
+     *
+     * @return A boolean representing whether the FoodPellet is white
+     */
+    public boolean isWhite() {
+        return isWhite;
+    }
+    
+    /**
+     * Get which of the pellet colors the FoodPellet is drawn with
+     *
+     * @return An integer from 0 up to but not including NUM_COLORS
+     */
+    public int getColorIndex() {
+        return colorIndex;
+    }
+    
     /**
      * Get the current tile of the FoodPellet
      *
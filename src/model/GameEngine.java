@@ -0,0 +1,291 @@
+package model;
+
+/**
+ * Runs the rules of a game of Snake one tick at a time, without any JavaFX or drawing
+ *
+ * @author Vannela Chatla and Sameeka Maroli
+ */
+
+public class GameEngine {
+    private static final int MAGNET_RADIUS = 2;
+    private static final long POWER_UP_NANOS = 15_000_000_000L;
+    private static final long DEFAULT_INTERVAL = 75_000_000;
+    
+    private Board board;
+    private Snake snake;
+    private ScoreManager scoreManager;
+    private GameRandom random;
+    private Effects effects;
+    private int powerUpTicks;
+    private boolean isGameOver;
+    private long tick;
+    private RewindBuffer rewindBuffer;
+    
+    private final FoodPellet[] magnetPellets = new FoodPellet[(2 * MAGNET_RADIUS + 1) * (2 * MAGNET_RADIUS + 1)];
+    
+    /**
+     * Create a new GameEngine with a given board size
+     *
+     * @param width      An integer that represents the width of the game board
+     * @param height     An integer that represents the height of the game board
+     * @param numPellets An integer that represents the number of FoodPellets on the board
+     */
+    public GameEngine(int width, int height, int numPellets) {
+        this(width, height, numPellets, new GameRandom().getSeed());
+    }
+    
+    /**
+     * Create a new GameEngine with a given board size, the same seed and inputs always play the same game
+     *
+     * @param width      An integer that represents the width of the game board
+     * @param height     An integer that represents the height of the game board
+     * @param numPellets An integer that represents the number of FoodPellets on the board
+     * @param seed       A long that decides where FoodPellets appear and which are power ups
+     */
+    public GameEngine(int width, int height, int numPellets, long seed) {
+        this(width, height, numPellets, seed, DEFAULT_INTERVAL);
+    }
+    
+    /**
+     * Create a new GameEngine with a given board size and tick length
+     *
+     * @param width      An integer that represents the width of the game board
+     * @param height     An integer that represents the height of the game board
+     * @param numPellets An integer that represents the number of FoodPellets on the board
+     * @param seed       A long that decides where FoodPellets appear and which are power ups
+     * @param interval   A long representing the time between ticks in nanoseconds, used to time effects
+     */
+    public GameEngine(int width, int height, int numPellets, long seed, long interval) {
+        this.effects = new Effects();
+        this.powerUpTicks = (int) Math.max(1, POWER_UP_NANOS / interval);
+        this.random = new GameRandom(seed);
+        this.snake = new Snake(width / 2, height / 2);
+        this.board = new Board(width, height, numPellets, snake, random);
+        this.scoreManager = new ScoreManager();
+        isGameOver = false;
+        tick = 0;
+    }
+    
+    /**
+     * Advance the game by one tick, this does not allocate
+     *
+     * @param input The direction the player asked for during this tick, or null to keep going straight
+     * @return True if the game is still running after the tick, False if it is over
+     */
+    public boolean step(Snake.Direction input) {
+        if (isGameOver) {
+            return false;
+        }
+        if (rewindBuffer == null) {
+            return advance(input);
+        }
+        rewindBuffer.beginTick();
+        boolean isRunning = advance(input);
+        rewindBuffer.endTick();
+        return isRunning;
+    }
+    
+    /**
+     * Run the rules for one tick of a game that is not over
+     *
+     * @param input The direction the player asked for during this tick, or null to keep going straight
+     * @return True if the game is still running after the tick, False if it is over
+     */
+    private boolean advance(Snake.Direction input) {
+        if (input != null) {
+            snake.setDirection(input);
+        }
+        tick++;
+        effects.tick();
+        snake.setPoweredUp(effects.isActive(Effects.Type.POWER_UP));
+        
+        if (board.isCollision()) {
+            gameOver();
+            return false;
+        }
+        checkFoodCollision();
+        if (!isGameOver) {
+            snake.move();
+        }
+        return !isGameOver;
+    }
+    
+    /**
+     * Check if the Snake has eaten a FoodPellet and if so, grow the snake and
+     * respawn the FoodPellet
+     */
+    private void checkFoodCollision() {
+        int head = snake.getHeadCell();
+        if (snake.isPoweredUp()) {
+            // Collect the pellets in the magnet area first, so a pellet that respawns
+            // inside the area is not eaten a second time in the same tick
+            int headX = Tile.unpackX(head);
+            int headY = Tile.unpackY(head);
+            int found = 0;
+            for (int i = -MAGNET_RADIUS; i <= MAGNET_RADIUS; i++) {
+                for (int j = -MAGNET_RADIUS; j <= MAGNET_RADIUS; j++) {
+                    FoodPellet pellet = board.getPelletAt(Tile.pack(headX + i, headY + j));
+                    if (pellet != null) {
+                        magnetPellets[found++] = pellet;
+                    }
+                }
+            }
+            for (int k = 0; k < found; k++) {
+                FoodPellet pellet = magnetPellets[k];
+                magnetPellets[k] = null;
+                if (!eatPellet(pellet, false)) {
+                    return;
+                }
+            }
+        } else {
+            FoodPellet pellet = board.getPelletAt(head);
+            if (pellet != null) {
+                if (pellet.isPowerUp()) {
+                    effects.start(Effects.Type.POWER_UP, powerUpTicks);
+                    snake.setPoweredUp(true);
+                }
+                eatPellet(pellet, !snake.isPoweredUp());
+            }
+        }
+    }
+    
+    /**
+     * Grow the Snake, add to the score and move the eaten FoodPellet somewhere else
+     *
+     * @param pellet     The FoodPellet that was eaten
+     * @param canPowerUp A boolean representing whether the respawned FoodPellet can be a power up
+     * @return True if the FoodPellet was respawned, False if the board is full and the game is over
+     */
+    private boolean eatPellet(FoodPellet pellet, boolean canPowerUp) {
+        boolean placed = pellet.respawn(canPowerUp);
+        scoreManager.updateScore(1);
+        snake.grow();
+        // The Snake has filled the board, there is nowhere left to put food
+        if (!placed) {
+            gameOver();
+        }
+        return placed;
+    }
+    
+    /**
+     * Changes the game state to game over
+     */
+    public void gameOver() {
+        isGameOver = true;
+    }
+    
+    /**
+     * Get whether the game has ended
+     *
+     * @return True if the game is over, False otherwise
+     */
+    public boolean isGameOver() {
+        return isGameOver;
+    }
+    
+    /**
+     * Set the tick counter and game over flag, used to restore a saved game
+     *
+     * @param tick       A long representing the number of ticks the game had run for
+     * @param isGameOver A boolean representing whether the game had ended
+     */
+    void restoreProgress(long tick, boolean isGameOver) {
+        this.tick = tick;
+        this.isGameOver = isGameOver;
+    }
+    
+    /**
+     * Record every tick in a RewindBuffer so it can be undone, called by the RewindBuffer
+     *
+     * @param rewindBuffer The RewindBuffer, or null to stop recording
+     */
+    void setRewindBuffer(RewindBuffer rewindBuffer) {
+        this.rewindBuffer = rewindBuffer;
+        board.setRewindBuffer(rewindBuffer);
+    }
+    
+    /**
+     * Get the number of ticks the game has run for
+     *
+     * @return A long representing the number of calls to step() while the game was running
+     */
+    public long getTick() {
+        return tick;
+    }
+    
+    /**
+     * Get a 64-bit hash of the state of the game, kept up to date as the game runs so this is O(1)
+     *
+     * Two games with the same hash on the same tick are the same game, unless the hashes collide
+     * by chance. See {@link StateHash} for what the hash covers.
+     *
+     * @return A long that equals {@link StateHash#compute(GameEngine)} for this game
+     */
+    public long getStateHash() {
+        return StateHash.combine(snake.getHash(), board.getPelletHash(), scoreManager.getCurrentScore(),
+                random.getState());
+    }
+    
+    /**
+     * Get the seed the game was started with
+     *
+     * @return A long that can be passed to a new GameEngine to play the same game again
+     */
+    public long getSeed() {
+        return random.getSeed();
+    }
+    
+    /**
+     * Get the random number generator of the game
+     *
+     * @return The GameRandom that makes every random choice of the game
+     */
+    public GameRandom getRandom() {
+        return random;
+    }
+    
+    /**
+     * Get whether the Snake is powered up
+     *
+     * @return True if the power up effect is active, False otherwise
+     */
+    public boolean isPoweredUp() {
+        return effects.isActive(Effects.Type.POWER_UP);
+    }
+    
+    /**
+     * Get the timed effects of the game
+     *
+     * @return The Effects that are counted down each tick
+     */
+    public Effects getEffects() {
+        return effects;
+    }
+    
+    /**
+     * Get the ScoreManager of the game
+     *
+     * @return A ScoreManager that contains the current and high scores
+     */
+    public ScoreManager getScoreManager() {
+        return scoreManager;
+    }
+    
+    /**
+     * Get the snake of the game
+     *
+     * @return A Snake object that represents the player
+     */
+    public Snake getSnake() {
+        return snake;
+    }
+    
+    /**
+     * Get the board of the game
+     *
+     * @return A Board object that represents the NxN tile board of the game
+     */
+    public Board getBoard() {
+        return board;
+    }
+}
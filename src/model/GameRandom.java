@@ -0,0 +1,111 @@
+package model;
+
+/**
+ * A small, fast and seedable random number generator owned by one game
+ *
+ * Every random choice of a game comes from the same GameRandom, so two games started with the
+ * same seed and given the same inputs play out exactly the same. The generator is SplitMix64,
+ * the algorithm behind java.util.SplittableRandom, with its state exposed so a game can be saved
+ * and restored mid-way. It is not thread safe.
+ *
+ * @author Brendan Bamberg
+ */
+
+public class GameRandom {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    
+    private final long seed;
+    private long state;
+    
+    /**
+     * Create a new GameRandom with a seed picked from the clock
+     */
+    public GameRandom() {
+        this(mix64(System.nanoTime() ^ System.currentTimeMillis() * GOLDEN_GAMMA));
+    }
+    
+    /**
+     * Create a new GameRandom that always produces the same numbers for the same seed
+     *
+     * @param seed A long representing the seed of the game
+     */
+    public GameRandom(long seed) {
+        this.seed = seed;
+        this.state = seed;
+    }
+    
+    /**
+     * Get the seed the GameRandom was created with
+     *
+     * @return A long representing the seed of the game
+     */
+    public long getSeed() {
+        return seed;
+    }
+    
+    /**
+     * Get the current state of the GameRandom, which decides every number it produces next
+     *
+     * @return A long representing the state
+     */
+    public long getState() {
+        return state;
+    }
+    
+    /**
+     * Restore a state previously returned by getState()
+     *
+     * @param state A long representing the state
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+    
+    /**
+     * Get the next random integer
+     *
+     * @return An integer using all 32 bits
+     */
+    public int nextInt() {
+        return mix32(state += GOLDEN_GAMMA);
+    }
+    
+    /**
+     * Get the next random integer from 0 up to but not including a bound, without bias
+     *
+     * @param bound An integer representing the upper bound, must be positive
+     * @return An integer from 0 up to but not including bound
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0)
+            throw new IllegalArgumentException("bound must be positive");
+        int r = nextInt();
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return r & m;
+        }
+        // Reject the few values at the top of the range that would make small results more likely
+        int u = r >>> 1;
+        while (u + m - (r = u % bound) < 0) {
+            u = nextInt() >>> 1;
+        }
+        return r;
+    }
+    
+    /**
+     * Mix all 64 bits of a value into a well distributed long, different values always give different results
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+    
+    /**
+     * Mix all 64 bits of a value into a well distributed int
+     */
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+}
@@ -0,0 +1,132 @@
+package model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A recorded game played back alongside a live one, so the player can race their best run
+ *
+ * The Ghost runs its own GameEngine one tick for every tick of the live game. Its inputs are
+ * decoded one at a time, straight from the memory mapped ReplayFile, right before the tick they
+ * are due, so the file is never loaded as a whole and a tick of the Ghost does not allocate. When
+ * the live game is rewound, the Ghost seeks to the same tick through the Keyframes of the file,
+ * picking up the inputs where the keyframe index says they continue.
+ *
+ * A file that turns out to be broken part way stops the Ghost instead of the live game.
+ *
+ * @author Brendan Bamberg
+ */
+
+public class Ghost {
+    private final ReplayFile file;
+    private GameEngine engine;
+    // The inputs not decoded yet, and the one decoded ahead that is due next
+    private ByteBuffer inputs;
+    private long inputsLeft;
+    private long nextInputTick;
+    private Snake.Direction nextDirection;
+    private boolean isBroken;
+    
+    /**
+     * Create a Ghost at the start of a recorded game
+     *
+     * @param file The ReplayFile of the recorded game
+     * @throws IOException If the inputs can not be read
+     */
+    public Ghost(ReplayFile file) throws IOException {
+        this.file = file;
+        seek(0);
+    }
+    
+    /**
+     * Apply the recorded inputs due before the next tick and run the tick
+     *
+     * @return True if the recorded game goes on after this tick, False once it has ended
+     */
+    public boolean step() {
+        if (isFinished()) {
+            return false;
+        }
+        long tick = engine.getTick();
+        Snake snake = engine.getSnake();
+        try {
+            while (nextDirection != null && nextInputTick == tick) {
+                snake.setDirection(nextDirection);
+                readNextInput();
+            }
+        } catch (IOException | BufferUnderflowException e) {
+            isBroken = true;
+            return false;
+        }
+        engine.step(null);
+        return !isFinished();
+    }
+    
+    /**
+     * Put the Ghost at a tick of the recorded game, starting from the last Keyframe before it
+     *
+     * @param tick A long representing the tick, a tick past the end stops at the end
+     * @throws IOException If the Keyframe or the inputs can not be read
+     */
+    public void seek(long tick) throws IOException {
+        engine = file.getHeader().createEngine();
+        int keyframe = file.findKeyframe(tick);
+        int inputIndex = file.restoreKeyframe(engine, keyframe);
+        // The index of the file says where the inputs after the Keyframe start and which tick they count from
+        inputs = file.inputsAfter(keyframe, inputIndex);
+        nextInputTick = file.inputTickAfter(keyframe, inputIndex);
+        inputsLeft = file.getInputCount() - inputIndex;
+        try {
+            readNextInput();
+        } catch (BufferUnderflowException e) {
+            throw new IOException("replay is truncated", e);
+        }
+        isBroken = false;
+        while (engine.getTick() < tick && step()) {
+            // Play forward from the Keyframe, at most one keyframe interval
+        }
+    }
+    
+    /**
+     * Decode the next input, or note that there are none left
+     */
+    private void readNextInput() throws IOException {
+        if (inputsLeft == 0) {
+            nextDirection = null;
+            return;
+        }
+        long input = Replay.readVarLong(inputs);
+        inputsLeft--;
+        nextInputTick += input >>> 2;
+        nextDirection = Replay.inputDirection(input);
+    }
+    
+    /**
+     * Get whether the recorded game has ended
+     *
+     * @return True if the game is over, has reached the last recorded tick, or the file is broken, False otherwise
+     */
+    public boolean isFinished() {
+        long finalTick = file.getHeader().getFinalTick();
+        return isBroken || engine.isGameOver() || (finalTick >= 0 && engine.getTick() >= finalTick);
+    }
+    
+    /**
+     * Get the engine the Ghost is played on, it changes when the Ghost seeks
+     *
+     * @return A GameEngine holding the state of the recorded game
+     */
+    public GameEngine getEngine() {
+        return engine;
+    }
+    
+    /**
+     * Get the settings and result of the recorded game
+     *
+     * @return A Replay holding no inputs
+     */
+    public Replay getRecording() {
+        return file.getHeader();
+    }
+}
@@ -0,0 +1,155 @@
+package model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The state hashes of a game after every tick, chained, so two runs of the same Replay can be compared
+ *
+ * Entry 0 covers the game before the first tick and entry t covers the game after t ticks. Each
+ * entry mixes the state hash of its tick into the entry before it, so an entry stands for the
+ * whole run up to its tick. Two runs whose states differ on one tick and match again later still
+ * differ in every entry from that tick on, which lets DesyncFinder bisect. A HashTrace can be
+ * written to a file, so a run made by one build of the game can be compared with a run made by
+ * another.
+ *
+ * File layout: magic "SNKH", the number of entries as four bytes, then each chained entry as eight bytes.
+ *
+ * @author Brendan Bamberg
+ */
+
+public class HashTrace {
+    private static final int MAGIC = 0x534E4B48;
+    
+    private long[] hashes;
+    private int length;
+    
+    /**
+     * Create an empty HashTrace
+     */
+    public HashTrace() {
+        hashes = new long[1024];
+    }
+    
+    /**
+     * Play a Replay from the start and hash the game after every tick
+     *
+     * @param replay The Replay to be played
+     * @return A new HashTrace holding one hash more than the number of ticks played
+     */
+    public static HashTrace record(Replay replay) {
+        HashTrace trace = new HashTrace();
+        ReplayPlayer player = new ReplayPlayer(replay);
+        GameEngine engine = player.getEngine();
+        trace.add(engine.getStateHash());
+        while (!player.isFinished()) {
+            player.step();
+            trace.add(engine.getStateHash());
+        }
+        return trace;
+    }
+    
+    /**
+     * Add the state hash of the next tick, chained onto the entry before it
+     *
+     * @param stateHash A long returned by {@link GameEngine#getStateHash()}
+     */
+    public void add(long stateHash) {
+        long previous = length == 0 ? 0 : hashes[length - 1];
+        append(GameRandom.mix64(previous ^ stateHash));
+    }
+    
+    /**
+     * Add an entry that is already chained, as stored in a file
+     */
+    private void append(long hash) {
+        if (length == hashes.length) {
+            hashes = Arrays.copyOf(hashes, length * 2);
+        }
+        hashes[length++] = hash;
+    }
+    
+    /**
+     * Get the chained hash of the run up to a number of ticks
+     *
+     * @param tick A long from 0 up to but not including length()
+     * @return A long covering the state hashes of every tick up to and including this one
+     */
+    public long get(long tick) {
+        if (tick < 0 || tick >= length) {
+            throw new IndexOutOfBoundsException("Tick: " + tick + ", Length: " + length);
+        }
+        return hashes[(int) tick];
+    }
+    
+    /**
+     * Get the number of hashes in the HashTrace
+     *
+     * @return An integer representing the number of ticks played plus one
+     */
+    public int length() {
+        return length;
+    }
+    
+    /**
+     * Write the HashTrace to a file
+     *
+     * @param file The file to be written
+     * @throws IOException If the file can not be written
+     */
+    public void write(Path file) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(8 + length * 8);
+        out.putInt(MAGIC);
+        out.putInt(length);
+        for (int i = 0; i < length; i++) {
+            out.putLong(hashes[i]);
+        }
+        Files.write(file, out.array());
+    }
+    
+    /**
+     * Read a HashTrace from a file
+     *
+     * @param file The file to be read
+     * @return The HashTrace stored in the file
+     * @throws IOException If the file can not be read or is not a HashTrace
+     */
+    public static HashTrace read(Path file) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException(file + " is not a hash trace");
+            }
+            int count = in.getInt();
+            if (count < 0 || count > in.remaining() / 8) {
+                throw new IOException(file + " is truncated");
+            }
+            HashTrace trace = new HashTrace();
+            for (int i = 0; i < count; i++) {
+                trace.append(in.getLong());
+            }
+            return trace;
+        } catch (BufferUnderflowException e) {
+            throw new IOException(file + " is truncated", e);
+        }
+    }
+    
+    /**
+     * Check whether a file holds a HashTrace rather than something else, such as a Replay
+     *
+     * @param file The file to be checked
+     * @return True if the file starts like a HashTrace, False otherwise
+     * @throws IOException If the file can not be read
+     */
+    public static boolean isHashTrace(Path file) throws IOException {
+        byte[] start = new byte[4];
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.readNBytes(start, 0, 4) == 4 && ByteBuffer.wrap(start).getInt() == MAGIC;
+        }
+    }
+}
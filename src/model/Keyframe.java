@@ -0,0 +1,271 @@
+package model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * The full state of a game at one tick, stored in replay files so playback can start part way
+ *
+ * A Keyframe holds everything a GameEngine needs to carry on exactly as the recorded game did:
+ * the tick, the state of the GameRandom, the score, the timed effects, the Snake and every
+ * FoodPellet. The Snake is stored as its head cell followed by one byte per segment giving the
+ * step to the next segment, since every segment touches the one before it. The order the Board
+ * keeps its free tiles in is stored too, because FoodPellets are placed by picking from it.
+ *
+ * @author Brendan Bamberg
+ */
+
+public class Keyframe {
+    private static final Snake.Direction[] DIRECTIONS = Snake.Direction.values();
+    private static final Effects.Type[] EFFECT_TYPES = Effects.Type.values();
+    // Step codes between neighbouring segments, STEP_CELL is followed by the full cell
+    private static final int STEP_SAME = 0;
+    private static final int STEP_CELL = 5;
+    
+    private final long tick;
+    private final int inputIndex;
+    private final long randomState;
+    private final int score;
+    private final boolean isGameOver;
+    private final boolean isPoweredUp;
+    private final Snake.Direction direction;
+    private final int[] effects;
+    private final int[] snakeCells;
+    private final int[] pelletCells;
+    private final int[] pelletColors;
+    private final boolean[] pelletPowerUps;
+    private final int[] freeCells;
+    
+    private Keyframe(long tick, int inputIndex, long randomState, int score, boolean isGameOver, boolean isPoweredUp,
+                     Snake.Direction direction, int[] effects, int[] snakeCells, int[] pelletCells, int[] pelletColors,
+                     boolean[] pelletPowerUps, int[] freeCells) {
+        this.tick = tick;
+        this.inputIndex = inputIndex;
+        this.randomState = randomState;
+        this.score = score;
+        this.isGameOver = isGameOver;
+        this.isPoweredUp = isPoweredUp;
+        this.direction = direction;
+        this.effects = effects;
+        this.snakeCells = snakeCells;
+        this.pelletCells = pelletCells;
+        this.pelletColors = pelletColors;
+        this.pelletPowerUps = pelletPowerUps;
+        this.freeCells = freeCells;
+    }
+    
+    /**
+     * Capture the state of a game between two ticks
+     *
+     * @param engine     The GameEngine playing the game
+     * @param inputIndex An integer representing how many recorded inputs were applied before this tick
+     * @return A new Keyframe
+     */
+    public static Keyframe capture(GameEngine engine, int inputIndex) {
+        Snake snake = engine.getSnake();
+        int[] snakeCells = new int[snake.size()];
+        for (int i = 0; i < snakeCells.length; i++) {
+            snakeCells[i] = snake.getCell(i);
+        }
+        
+        int[] effects = new int[EFFECT_TYPES.length];
+        for (int i = 0; i < effects.length; i++) {
+            effects[i] = engine.getEffects().getRemaining(EFFECT_TYPES[i]);
+        }
+        
+        ArrayList<FoodPellet> pellets = engine.getBoard().getFoodPellets();
+        int[] pelletCells = new int[pellets.size()];
+        int[] pelletColors = new int[pellets.size()];
+        boolean[] pelletPowerUps = new boolean[pellets.size()];
+        for (int i = 0; i < pelletCells.length; i++) {
+            FoodPellet pellet = pellets.get(i);
+            pelletCells[i] = pellet.getCell();
+            pelletColors[i] = pellet.getColorIndex();
+            pelletPowerUps[i] = pellet.isPowerUp();
+        }
+        
+        return new Keyframe(engine.getTick(), inputIndex, engine.getRandom().getState(),
+                engine.getScoreManager().getCurrentScore(), engine.isGameOver(), snake.isPoweredUp(),
+                snake.getDirection(), effects, snakeCells, pelletCells, pelletColors, pelletPowerUps,
+                engine.getBoard().getFreeCellOrder());
+    }
+    
+    /**
+     * Put a GameEngine created for the same game into the captured state
+     *
+     * @param engine A GameEngine with the seed, settings and number of FoodPellets of the recorded game
+     */
+    public void restore(GameEngine engine) {
+        Board board = engine.getBoard();
+        ArrayList<FoodPellet> pellets = board.getFoodPellets();
+        // Lift every pellet first, a pellet may be restored onto a tile another one is still on
+        for (FoodPellet pellet : pellets) {
+            pellet.removeFromBoard();
+        }
+        Snake snake = engine.getSnake();
+        snake.restore(snakeCells, snakeCells.length, direction);
+        snake.setPoweredUp(isPoweredUp);
+        for (int i = 0; i < pellets.size() && i < pelletCells.length; i++) {
+            pellets.get(i).restore(pelletCells[i], pelletColors[i], pelletPowerUps[i]);
+        }
+        board.restoreFreeCellOrder(freeCells);
+        
+        for (int i = 0; i < EFFECT_TYPES.length; i++) {
+            engine.getEffects().stop(EFFECT_TYPES[i]);
+            if (i < effects.length) {
+                engine.getEffects().start(EFFECT_TYPES[i], effects[i]);
+            }
+        }
+        engine.getRandom().setState(randomState);
+        engine.getScoreManager().resetScore();
+        engine.getScoreManager().updateScore(score);
+        engine.restoreProgress(tick, isGameOver);
+        board.markAllDirty();
+    }
+    
+    /**
+     * Encode the Keyframe
+     *
+     * @param out The stream the Keyframe is written to
+     */
+    void write(ByteArrayOutputStream out) {
+        Replay.writeVarLong(out, tick);
+        Replay.writeVarLong(out, inputIndex);
+        Replay.writeFixed(out, randomState, 8);
+        Replay.writeVarLong(out, score);
+        out.write((isGameOver ? 1 : 0) | (isPoweredUp ? 2 : 0) | direction.ordinal() << 2);
+        
+        Replay.writeVarLong(out, effects.length);
+        for (int remaining : effects) {
+            Replay.writeVarLong(out, remaining);
+        }
+        
+        Replay.writeVarLong(out, snakeCells.length);
+        Replay.writeVarLong(out, Integer.toUnsignedLong(snakeCells[0]));
+        for (int i = 1; i < snakeCells.length; i++) {
+            int step = stepCode(snakeCells[i - 1], snakeCells[i]);
+            out.write(step);
+            if (step == STEP_CELL) {
+                Replay.writeVarLong(out, Integer.toUnsignedLong(snakeCells[i]));
+            }
+        }
+        
+        Replay.writeVarLong(out, pelletCells.length);
+        for (int i = 0; i < pelletCells.length; i++) {
+            Replay.writeVarLong(out, (Integer.toUnsignedLong(pelletCells[i]) + 1) & 0xFFFFFFFFL);
+            out.write(pelletColors[i] << 1 | (pelletPowerUps[i] ? 1 : 0));
+        }
+        
+        Replay.writeVarLong(out, freeCells.length);
+        for (int index : freeCells) {
+            Replay.writeVarLong(out, index);
+        }
+    }
+    
+    /**
+     * Decode a Keyframe written by write
+     *
+     * @param in A ByteBuffer positioned at the start of the Keyframe, left after its end
+     * @return The Keyframe
+     * @throws IOException If the bytes are not a valid Keyframe
+     */
+    static Keyframe read(ByteBuffer in) throws IOException {
+        long tick = Replay.readVarLong(in);
+        int inputIndex = (int) Replay.readVarLong(in);
+        long randomState = in.getLong();
+        int score = (int) Replay.readVarLong(in);
+        int flags = in.get();
+        
+        int[] effects = new int[checkedLength(Replay.readVarLong(in), in)];
+        for (int i = 0; i < effects.length; i++) {
+            effects[i] = (int) Replay.readVarLong(in);
+        }
+        
+        int length = checkedLength(Replay.readVarLong(in), in);
+        if (length == 0) {
+            throw new IOException("keyframe has no snake");
+        }
+        int[] snakeCells = new int[length];
+        snakeCells[0] = (int) Replay.readVarLong(in);
+        for (int i = 1; i < snakeCells.length; i++) {
+            int step = in.get();
+            if (step == STEP_CELL) {
+                snakeCells[i] = (int) Replay.readVarLong(in);
+            } else if (step == STEP_SAME) {
+                snakeCells[i] = snakeCells[i - 1];
+            } else if (step > 0 && step <= DIRECTIONS.length) {
+                Snake.Direction toward = DIRECTIONS[step - 1];
+                int previous = snakeCells[i - 1];
+                snakeCells[i] = Tile.pack(Tile.unpackX(previous) + toward.getX(), Tile.unpackY(previous) + toward.getY());
+            } else {
+                throw new IOException("bad snake segment in keyframe");
+            }
+        }
+        
+        int pellets = checkedLength(Replay.readVarLong(in), in);
+        int[] pelletCells = new int[pellets];
+        int[] pelletColors = new int[pellets];
+        boolean[] pelletPowerUps = new boolean[pellets];
+        for (int i = 0; i < pellets; i++) {
+            pelletCells[i] = (int) Replay.readVarLong(in) - 1;
+            int appearance = in.get();
+            pelletColors[i] = appearance >> 1;
+            pelletPowerUps[i] = (appearance & 1) != 0;
+        }
+        
+        int[] freeCells = new int[checkedLength(Replay.readVarLong(in), in)];
+        for (int i = 0; i < freeCells.length; i++) {
+            freeCells[i] = (int) Replay.readVarLong(in);
+        }
+        
+        return new Keyframe(tick, inputIndex, randomState, score, (flags & 1) != 0, (flags & 2) != 0,
+                DIRECTIONS[flags >> 2 & 3], effects, snakeCells, pelletCells, pelletColors, pelletPowerUps, freeCells);
+    }
+    
+    /**
+     * Get the tick the Keyframe was captured at
+     *
+     * @return A long representing the number of ticks the game had run
+     */
+    public long getTick() {
+        return tick;
+    }
+    
+    /**
+     * Get how many recorded inputs had been applied when the Keyframe was captured
+     *
+     * @return An integer representing the index of the next input to apply
+     */
+    public int getInputIndex() {
+        return inputIndex;
+    }
+    
+    /**
+     * Get the code for the step from one segment of the Snake to the next
+     */
+    private static int stepCode(int from, int to) {
+        if (from == to) {
+            return STEP_SAME;
+        }
+        int dx = Tile.unpackX(to) - Tile.unpackX(from);
+        int dy = Tile.unpackY(to) - Tile.unpackY(from);
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            if (DIRECTIONS[i].getX() == dx && DIRECTIONS[i].getY() == dy) {
+                return i + 1;
+            }
+        }
+        return STEP_CELL;
+    }
+    
+    /**
+     * Check a length read from a file before an array is made for it, each element takes at least a byte
+     */
+    private static int checkedLength(long length, ByteBuffer in) throws IOException {
+        if (length < 0 || length > in.remaining()) {
+            throw new IOException("bad length in keyframe");
+        }
+        return (int) length;
+    }
+}
@@ -0,0 +1,410 @@
+package model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A recording of a game of Snake that plays it again exactly
+ *
+ * A game is decided by its seed, its settings and the direction changes of the player, so that
+ * is all a Replay stores. Each direction change is stamped with the number of ticks the game had
+ * run when the key was pressed, and is applied right before the next tick.
+ *
+ * When a Replay is written it is played through once and a Keyframe of the full game state is
+ * stored every KEYFRAME_INTERVAL ticks, so a ReplayFile can start playback near any tick instead
+ * of at the beginning. Recording itself stays as cheap as storing the inputs.
+ *
+ * File layout: magic "SNKR", version, seed as eight bytes, then as varints the interval in
+ * nanoseconds, number of FoodPellets, board width, board height, final tick, final score and
+ * number of inputs. Each input is a single varint holding the ticks since the previous input
+ * shifted left by two, with the direction in the low two bits, so most inputs take one byte.
+ * The Keyframes follow, then an index of thirty-two bytes per Keyframe holding its tick, its file
+ * offset, the file offset of the first input applied after it and the tick of the last input
+ * applied before it, so playback can pick up the inputs without decoding the ones before. Last
+ * comes a trailer holding the offset of the index, the number of Keyframes, the keyframe
+ * interval and the magic "SNKI". Version 2 files have sixteen byte index entries holding only
+ * the tick and file offset, version 1 files end after the inputs.
+ *
+ * @author Brendan Bamberg
+ */
+
+public class Replay {
+    public static final int KEYFRAME_INTERVAL = 1024;
+    
+    private static final int MAGIC = 0x534E4B52;
+    private static final int VERSION = 3;
+    static final int INDEX_MAGIC = 0x534E4B49;
+    static final int TRAILER_SIZE = 20;
+    static final int INDEX_ENTRY_SIZE = 32;
+    static final int V2_INDEX_ENTRY_SIZE = 16;
+    // The magic, the seed and at most seven varlongs of ten bytes
+    static final int MAX_HEADER_SIZE = 4 + 8 + 7 * 10;
+    private static final Snake.Direction[] DIRECTIONS = Snake.Direction.values();
+    
+    private final long seed;
+    private final long interval;
+    private final int numPellets;
+    private final int width;
+    private final int height;
+    
+    private long[] inputTicks;
+    private byte[] inputDirections;
+    private int inputCount;
+    private long finalTick;
+    private int finalScore;
+    
+    /**
+     * Create an empty Replay for a game about to start
+     *
+     * @param seed       A long representing the seed of the game
+     * @param interval   A long representing the time between ticks in nanoseconds
+     * @param numPellets An integer representing the number of FoodPellets on the board
+     * @param width      An integer representing the width of the board
+     * @param height     An integer representing the height of the board
+     */
+    public Replay(long seed, long interval, int numPellets, int width, int height) {
+        this.seed = seed;
+        this.interval = interval;
+        this.numPellets = numPellets;
+        this.width = width;
+        this.height = height;
+        inputTicks = new long[16];
+        inputDirections = new byte[16];
+        finalTick = -1;
+    }
+    
+    /**
+     * Record a direction change of the player
+     *
+     * @param tick      A long representing the number of ticks the game had run when the key was pressed
+     * @param direction The direction the player asked for
+     */
+    public void record(long tick, Snake.Direction direction) {
+        if (inputCount > 0 && tick < inputTicks[inputCount - 1]) {
+            throw new IllegalArgumentException("inputs must be recorded in tick order");
+        }
+        if (inputCount == inputTicks.length) {
+            inputTicks = Arrays.copyOf(inputTicks, inputCount * 2);
+            inputDirections = Arrays.copyOf(inputDirections, inputCount * 2);
+        }
+        inputTicks[inputCount] = tick;
+        inputDirections[inputCount] = (byte) direction.ordinal();
+        inputCount++;
+    }
+    
+    /**
+     * Forget every direction change recorded after a tick, used when the game is rewound to that tick
+     *
+     * @param tick A long representing the number of ticks the rewound game has run, direction
+     *             changes made on that tick are kept because the rewound Snake has already turned
+     */
+    public void truncate(long tick) {
+        while (inputCount > 0 && inputTicks[inputCount - 1] > tick) {
+            inputCount--;
+        }
+        finalTick = -1;
+        finalScore = 0;
+    }
+    
+    /**
+     * Copy the Replay, so it can be written on another thread while the game carries on changing this one
+     *
+     * @return A new Replay holding the same settings, inputs and result
+     */
+    public Replay copy() {
+        Replay copy = new Replay(seed, interval, numPellets, width, height);
+        copy.inputTicks = Arrays.copyOf(inputTicks, Math.max(1, inputCount));
+        copy.inputDirections = Arrays.copyOf(inputDirections, Math.max(1, inputCount));
+        copy.inputCount = inputCount;
+        copy.finalTick = finalTick;
+        copy.finalScore = finalScore;
+        return copy;
+    }
+    
+    /**
+     * Record how the game ended, so a replay can be checked against it
+     *
+     * @param engine The GameEngine that played the game
+     */
+    public void finish(GameEngine engine) {
+        finalTick = engine.getTick();
+        finalScore = engine.getScoreManager().getCurrentScore();
+    }
+    
+    /**
+     * Create a GameEngine in the state the recorded game started in
+     *
+     * @return A new GameEngine
+     */
+    public GameEngine createEngine() {
+        return new GameEngine(width, height, numPellets, seed, interval);
+    }
+    
+    /**
+     * Write the Replay to a file
+     *
+     * @param file The file to be written
+     * @throws IOException If the file can not be written
+     */
+    public void write(Path file) throws IOException {
+        Files.write(file, toBytes());
+    }
+    
+    /**
+     * Read a Replay from a file
+     *
+     * @param file The file to be read
+     * @return The Replay stored in the file
+     * @throws IOException If the file can not be read or is not a Replay
+     */
+    public static Replay read(Path file) throws IOException {
+        return fromBytes(ByteBuffer.wrap(Files.readAllBytes(file)));
+    }
+    
+    /**
+     * Encode the Replay in the file layout, this plays the recorded game through once to build its Keyframes
+     *
+     * @return A new byte array holding the Replay
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 + inputCount);
+        writeFixed(out, MAGIC, 4);
+        writeVarLong(out, VERSION);
+        writeFixed(out, seed, 8);
+        writeVarLong(out, interval);
+        writeVarLong(out, numPellets);
+        writeVarLong(out, width);
+        writeVarLong(out, height);
+        writeVarLong(out, finalTick + 1); // -1 for a game still running
+        writeVarLong(out, finalScore);
+        writeVarLong(out, inputCount);
+        // Where each input starts, and where the inputs end, for the keyframe index
+        long[] inputOffsets = new long[inputCount + 1];
+        long lastTick = 0;
+        for (int i = 0; i < inputCount; i++) {
+            inputOffsets[i] = out.size();
+            writeVarLong(out, (inputTicks[i] - lastTick) << 2 | inputDirections[i]);
+            lastTick = inputTicks[i];
+        }
+        inputOffsets[inputCount] = out.size();
+        
+        // Play the game again and store its state every KEYFRAME_INTERVAL ticks
+        List<Long> offsets = new ArrayList<>();
+        List<Integer> inputIndexes = new ArrayList<>();
+        ReplayPlayer player = new ReplayPlayer(this);
+        GameEngine engine = player.getEngine();
+        long end = finalTick >= 0 ? finalTick : (inputCount > 0 ? inputTicks[inputCount - 1] : 0);
+        for (long tick = KEYFRAME_INTERVAL; tick <= end; tick += KEYFRAME_INTERVAL) {
+            while (engine.getTick() < tick && player.step()) {
+                // Each step runs one tick
+            }
+            if (engine.getTick() != tick) {
+                break;
+            }
+            offsets.add((long) out.size());
+            inputIndexes.add(player.getNextInput());
+            Keyframe.capture(engine, player.getNextInput()).write(out);
+        }
+        long indexOffset = out.size();
+        for (int i = 0; i < offsets.size(); i++) {
+            int inputIndex = inputIndexes.get(i);
+            writeFixed(out, (i + 1L) * KEYFRAME_INTERVAL, 8);
+            writeFixed(out, offsets.get(i), 8);
+            writeFixed(out, inputOffsets[inputIndex], 8);
+            writeFixed(out, inputIndex > 0 ? inputTicks[inputIndex - 1] : 0, 8);
+        }
+        writeFixed(out, indexOffset, 8);
+        writeFixed(out, offsets.size(), 4);
+        writeFixed(out, KEYFRAME_INTERVAL, 4);
+        writeFixed(out, INDEX_MAGIC, 4);
+        return out.toByteArray();
+    }
+    
+    /**
+     * Decode the settings and inputs of a Replay written by toBytes, Keyframes are only read by ReplayFile
+     *
+     * @param in A ByteBuffer positioned at the start of the Replay, left after the last input
+     * @return The Replay
+     * @throws IOException If the bytes are not a Replay this version understands
+     */
+    public static Replay fromBytes(ByteBuffer in) throws IOException {
+        try {
+            Replay replay = readHeader(in);
+            long count = readVarLong(in);
+            long tick = 0;
+            for (long i = 0; i < count; i++) {
+                long input = readVarLong(in);
+                tick += input >>> 2;
+                replay.record(tick, inputDirection(input));
+            }
+            return replay;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("replay is truncated", e);
+        }
+    }
+    
+    /**
+     * Decode only the settings and result of a Replay, so its inputs can be read one at a time
+     *
+     * @param in A ByteBuffer positioned at the start of the Replay, left at the number of inputs
+     * @return A Replay holding no inputs
+     * @throws IOException If the bytes are not a Replay this version understands
+     */
+    static Replay readHeader(ByteBuffer in) throws IOException {
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("not a replay");
+            }
+            long version = readVarLong(in);
+            if (version > VERSION) {
+                throw new IOException("replay was written by a newer version (format " + version + ")");
+            }
+            long seed = in.getLong();
+            long interval = readVarLong(in);
+            int numPellets = (int) readVarLong(in);
+            int width = (int) readVarLong(in);
+            int height = (int) readVarLong(in);
+            Replay replay = new Replay(seed, interval, numPellets, width, height);
+            replay.finalTick = readVarLong(in) - 1;
+            replay.finalScore = (int) readVarLong(in);
+            return replay;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("replay is truncated", e);
+        }
+    }
+    
+    /**
+     * Decode the direction of an input as stored in the file
+     *
+     * @param input A long read from the file, holding the ticks since the previous input and the direction
+     * @return The direction the player asked for
+     */
+    static Snake.Direction inputDirection(long input) {
+        return DIRECTIONS[(int) (input & 3)];
+    }
+    
+    /**
+     * Get the number of recorded direction changes
+     *
+     * @return An integer representing the number of inputs
+     */
+    public int getInputCount() {
+        return inputCount;
+    }
+    
+    /**
+     * Get the tick a recorded direction change is applied before
+     *
+     * @param index An integer from 0 up to but not including getInputCount()
+     * @return A long representing the tick
+     */
+    public long getInputTick(int index) {
+        return inputTicks[index];
+    }
+    
+    /**
+     * Get a recorded direction change
+     *
+     * @param index An integer from 0 up to but not including getInputCount()
+     * @return The direction the player asked for
+     */
+    public Snake.Direction getInputDirection(int index) {
+        return DIRECTIONS[inputDirections[index]];
+    }
+    
+    /**
+     * Get the number of ticks the recorded game ran for
+     *
+     * @return A long representing the final tick, or -1 if the game was not finished
+     */
+    public long getFinalTick() {
+        return finalTick;
+    }
+    
+    /**
+     * Get the score the recorded game ended with
+     *
+     * @return An integer representing the final score
+     */
+    public int getFinalScore() {
+        return finalScore;
+    }
+    
+    /**
+     * Get the seed of the recorded game
+     *
+     * @return A long representing the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+    
+    /**
+     * Get the time between ticks of the recorded game
+     *
+     * @return A long representing the interval in nanoseconds
+     */
+    public long getInterval() {
+        return interval;
+    }
+    
+    /**
+     * Get the number of FoodPellets on the board of the recorded game
+     *
+     * @return An integer representing the number of FoodPellets
+     */
+    public int getNumPellets() {
+        return numPellets;
+    }
+    
+    /**
+     * Get the width of the board of the recorded game
+     *
+     * @return An integer representing the width of the board
+     */
+    public int getWidth() {
+        return width;
+    }
+    
+    /**
+     * Get the height of the board of the recorded game
+     *
+     * @return An integer representing the height of the board
+     */
+    public int getHeight() {
+        return height;
+    }
+    
+    static void writeFixed(ByteArrayOutputStream out, long value, int bytes) {
+        for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+    
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+    
+    static long readVarLong(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("varint is too long");
+    }
+}
@@ -0,0 +1,277 @@
+package model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A replay file opened for seeking, read through a memory mapped FileChannel
+ *
+ * Only the settings are decoded when the file is opened, the inputs when they are first needed.
+ * Seeking looks up the last Keyframe at or before the wanted tick in the index at the end of the
+ * file, restores it and plays forward from there, so no seek runs more than one keyframe interval
+ * of ticks. The index also tells where the inputs after each Keyframe start, so they can be read
+ * from there without decoding the ones before. The pages of the file that are never visited are
+ * never read from disk.
+ *
+ * @author Brendan Bamberg
+ */
+
+public class ReplayFile {
+    private final MappedByteBuffer map;
+    private final Replay header;
+    private final long inputCount;
+    private final int inputsOffset;
+    private Replay replay;
+    private final long indexOffset;
+    private final int keyframeCount;
+    private final int keyframeInterval;
+    private final int indexEntrySize;
+    // Where every input starts and the tick it counts from, only built for version 2 files whose index lacks them
+    private int[] inputOffsets;
+    private long[] inputTicks;
+    
+    /**
+     * Open a replay file
+     *
+     * @param file The file written by {@link Replay#write(Path)}
+     * @throws IOException If the file can not be read or is not a replay
+     */
+    public ReplayFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer in = map.duplicate();
+        header = Replay.readHeader(in);
+        try {
+            inputCount = Replay.readVarLong(in);
+        } catch (BufferUnderflowException e) {
+            throw new IOException(file + " is truncated", e);
+        }
+        inputsOffset = in.position();
+        
+        int limit = map.limit();
+        if (limit >= Replay.TRAILER_SIZE && map.getInt(limit - 4) == Replay.INDEX_MAGIC) {
+            indexOffset = map.getLong(limit - Replay.TRAILER_SIZE);
+            keyframeCount = map.getInt(limit - 12);
+            keyframeInterval = map.getInt(limit - 8);
+            long indexSize = limit - Replay.TRAILER_SIZE - indexOffset;
+            // Version 2 entries are shorter, the index fills the space up to the trailer exactly
+            if (keyframeCount > 0 && indexSize == (long) keyframeCount * Replay.V2_INDEX_ENTRY_SIZE) {
+                indexEntrySize = Replay.V2_INDEX_ENTRY_SIZE;
+            } else {
+                indexEntrySize = Replay.INDEX_ENTRY_SIZE;
+            }
+            if (indexOffset < inputsOffset || keyframeCount < 0 || keyframeInterval <= 0
+                    || indexSize != (long) keyframeCount * indexEntrySize) {
+                throw new IOException(file + " has a broken keyframe index");
+            }
+        } else {
+            // Written before keyframes existed, seeking plays from the start
+            indexOffset = 0;
+            keyframeCount = 0;
+            keyframeInterval = Replay.KEYFRAME_INTERVAL;
+            indexEntrySize = Replay.INDEX_ENTRY_SIZE;
+        }
+    }
+    
+    /**
+     * Get a ReplayPlayer whose game is at a given tick, ready to play on from there
+     *
+     * @param tick A long representing the tick to seek to, a tick past the end stops at the end
+     * @return A new ReplayPlayer
+     * @throws IOException If the Keyframe can not be read
+     */
+    public ReplayPlayer seek(long tick) throws IOException {
+        GameEngine engine = header.createEngine();
+        int inputIndex = restoreKeyframe(engine, findKeyframe(tick));
+        ReplayPlayer player = new ReplayPlayer(getReplay(), engine, inputIndex);
+        while (engine.getTick() < tick && player.step()) {
+            // Play forward from the Keyframe, at most one keyframe interval
+        }
+        return player;
+    }
+    
+    /**
+     * Put a GameEngine at the start of the recorded game into the state of a Keyframe
+     *
+     * @param engine   A GameEngine created by the Replay stored in the file
+     * @param keyframe The index of the Keyframe from {@link #findKeyframe(long)}, or -1 to leave the engine at the start
+     * @return The index of the first input not applied at the Keyframe, 0 if there is no Keyframe
+     * @throws IOException If the Keyframe can not be read
+     */
+    int restoreKeyframe(GameEngine engine, int keyframe) throws IOException {
+        if (keyframe < 0) {
+            return 0;
+        }
+        Keyframe read = readKeyframe(keyframe);
+        try {
+            read.restore(engine);
+        } catch (IllegalStateException e) {
+            throw new IOException("keyframe " + keyframe + " does not fit the recorded game", e);
+        }
+        if (read.getInputIndex() < 0 || read.getInputIndex() > inputCount) {
+            throw new IOException("keyframe " + keyframe + " is past the last input");
+        }
+        return read.getInputIndex();
+    }
+    
+    /**
+     * Get the inputs not applied yet at a Keyframe, ready to be decoded one at a time
+     *
+     * @param keyframe   The index of the Keyframe, or -1 for the start of the game
+     * @param inputIndex The index of the first input not applied at the Keyframe, from restoreKeyframe
+     * @return A new ByteBuffer positioned at that input
+     * @throws IOException If the index points outside the inputs
+     */
+    ByteBuffer inputsAfter(int keyframe, int inputIndex) throws IOException {
+        long offset;
+        if (keyframe < 0) {
+            offset = inputsOffset;
+        } else if (indexEntrySize == Replay.INDEX_ENTRY_SIZE) {
+            offset = map.getLong(indexEntry(keyframe) + 16);
+        } else {
+            offset = findInputs()[inputIndex];
+        }
+        if (offset < inputsOffset || offset > indexOffset) {
+            throw new IOException("keyframe " + keyframe + " points outside the inputs");
+        }
+        ByteBuffer in = map.duplicate();
+        in.position((int) offset);
+        return in;
+    }
+    
+    /**
+     * Get the tick the first input after a Keyframe is counted from, inputs store the ticks since the one before
+     *
+     * @param keyframe   The index of the Keyframe, or -1 for the start of the game
+     * @param inputIndex The index of the first input not applied at the Keyframe, from restoreKeyframe
+     * @return A long representing the tick of the last input applied at the Keyframe, or 0 if there is none
+     * @throws IOException If the inputs can not be read
+     */
+    long inputTickAfter(int keyframe, int inputIndex) throws IOException {
+        if (keyframe < 0) {
+            return 0;
+        }
+        if (indexEntrySize == Replay.INDEX_ENTRY_SIZE) {
+            return map.getLong(indexEntry(keyframe) + 24);
+        }
+        findInputs();
+        return inputTicks[inputIndex];
+    }
+    
+    /**
+     * Find where every input starts, once, for files whose index does not say where
+     *
+     * @return The file offset of every input, followed by the end of the inputs
+     * @throws IOException If the inputs are truncated
+     */
+    private int[] findInputs() throws IOException {
+        if (inputOffsets == null) {
+            int[] offsets = new int[(int) inputCount + 1];
+            long[] ticks = new long[(int) inputCount + 1];
+            ByteBuffer in = map.duplicate();
+            in.position(inputsOffset);
+            try {
+                for (int i = 0; i < inputCount; i++) {
+                    offsets[i] = in.position();
+                    ticks[i + 1] = ticks[i] + (Replay.readVarLong(in) >>> 2);
+                }
+            } catch (BufferUnderflowException e) {
+                throw new IOException("replay is truncated", e);
+            }
+            offsets[(int) inputCount] = in.position();
+            inputTicks = ticks;
+            inputOffsets = offsets;
+        }
+        return inputOffsets;
+    }
+    
+    /**
+     * Get the number of recorded inputs
+     *
+     * @return A long representing the number of direction changes in the file
+     */
+    long getInputCount() {
+        return inputCount;
+    }
+    
+    /**
+     * Get the settings and result of the replay, read when the file was opened
+     *
+     * @return A Replay holding no inputs
+     */
+    public Replay getHeader() {
+        return header;
+    }
+    
+    /**
+     * Find the last Keyframe at or before a tick, Keyframes are a fixed number of ticks apart so
+     * the entry is computed and only checked against its neighbours
+     *
+     * @param tick A long representing the tick
+     * @return The index of the Keyframe, or -1 if the tick comes before the first one
+     */
+    int findKeyframe(long tick) {
+        if (keyframeCount == 0) {
+            return -1;
+        }
+        int index = (int) Math.max(-1, Math.min(keyframeCount - 1, tick / keyframeInterval - 1));
+        while (index >= 0 && keyframeTick(index) > tick) {
+            index--;
+        }
+        while (index + 1 < keyframeCount && keyframeTick(index + 1) <= tick) {
+            index++;
+        }
+        return index;
+    }
+    
+    private int indexEntry(int index) {
+        return (int) (indexOffset + (long) index * indexEntrySize);
+    }
+    
+    private long keyframeTick(int index) {
+        return map.getLong(indexEntry(index));
+    }
+    
+    private Keyframe readKeyframe(int index) throws IOException {
+        long offset = map.getLong(indexEntry(index) + 8);
+        if (offset < 0 || offset >= indexOffset) {
+            throw new IOException("keyframe " + index + " lies outside the file");
+        }
+        ByteBuffer in = map.duplicate();
+        in.position((int) offset);
+        try {
+            return Keyframe.read(in);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("keyframe " + index + " is truncated", e);
+        }
+    }
+    
+    /**
+     * Get the settings and inputs of the replay, the inputs are decoded the first time this is called
+     *
+     * @return The Replay stored in the file, without its Keyframes
+     * @throws IOException If the inputs can not be read
+     */
+    public Replay getReplay() throws IOException {
+        if (replay == null) {
+            replay = Replay.fromBytes(map.duplicate());
+        }
+        return replay;
+    }
+    
+    /**
+     * Get the number of Keyframes in the file
+     *
+     * @return An integer representing the number of Keyframes
+     */
+    public int getKeyframeCount() {
+        return keyframeCount;
+    }
+}
@@ -0,0 +1,118 @@
+package model;
+
+/**
+ * Plays a Replay on a GameEngine one tick at a time, without any JavaFX or timing
+ *
+ * The caller decides how fast ticks happen, so the same Replay can be watched at normal speed,
+ * fast forwarded, or run to the end headlessly to check its score.
+ *
+ * @author Brendan Bamberg
+ */
+
+public class ReplayPlayer {
+    private final Replay replay;
+    private final GameEngine engine;
+    private int nextInput;
+    
+    /**
+     * Create a ReplayPlayer at the start of a recorded game
+     *
+     * @param replay The Replay to be played
+     */
+    public ReplayPlayer(Replay replay) {
+        this.replay = replay;
+        this.engine = replay.createEngine();
+        nextInput = 0;
+    }
+    
+    /**
+     * Create a ReplayPlayer part way through a recorded game, used after a Keyframe is restored
+     *
+     * @param replay    The Replay to be played
+     * @param engine    A GameEngine in the state of the recorded game at some tick
+     * @param nextInput The index of the first recorded input not yet applied
+     */
+    ReplayPlayer(Replay replay, GameEngine engine, int nextInput) {
+        this.replay = replay;
+        this.engine = engine;
+        this.nextInput = nextInput;
+    }
+    
+    /**
+     * Apply the recorded inputs due before the next tick and run the tick
+     *
+     * @return True if the recorded game goes on after this tick, False once it has ended
+     */
+    public boolean step() {
+        if (isFinished()) {
+            return false;
+        }
+        long tick = engine.getTick();
+        Snake snake = engine.getSnake();
+        while (nextInput < replay.getInputCount() && replay.getInputTick(nextInput) == tick) {
+            snake.setDirection(replay.getInputDirection(nextInput));
+            nextInput++;
+        }
+        engine.step(null);
+        return !isFinished();
+    }
+    
+    /**
+     * Play the rest of the recorded game as fast as possible
+     *
+     * @return The GameEngine in the state the recorded game ended in
+     */
+    public GameEngine playToEnd() {
+        while (step()) {
+            // Each step runs one tick
+        }
+        return engine;
+    }
+    
+    /**
+     * Get whether the recorded game has ended
+     *
+     * @return True if the game is over or has reached the last recorded tick, False otherwise
+     */
+    public boolean isFinished() {
+        long finalTick = replay.getFinalTick();
+        return engine.isGameOver() || (finalTick >= 0 && engine.getTick() >= finalTick);
+    }
+    
+    /**
+     * Get whether playing the Replay gave the same result that was recorded
+     *
+     * @return True if the game ended on the recorded tick with the recorded score, False otherwise
+     */
+    public boolean matchesRecording() {
+        return isFinished() && engine.getTick() == replay.getFinalTick()
+                && engine.getScoreManager().getCurrentScore() == replay.getFinalScore();
+    }
+    
+    /**
+     * Get the index of the first recorded input not yet applied
+     *
+     * @return An integer representing how many inputs have been applied
+     */
+    int getNextInput() {
+        return nextInput;
+    }
+    
+    /**
+     * Get the Replay being played
+     *
+     * @return The Replay
+     */
+    public Replay getReplay() {
+        return replay;
+    }
+    
+    /**
+     * Get the engine the Replay is played on
+     *
+     * @return A GameEngine holding the state of the replayed game
+     */
+    public GameEngine getEngine() {
+        return engine;
+    }
+}
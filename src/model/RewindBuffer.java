@@ -0,0 +1,281 @@
+package model;
+
+/**
+ * Remembers the last ticks of a game as small undo records, so the game can be stepped back
+ *
+ * Instead of copying the game, each tick stores only what it changed: the state of the GameRandom,
+ * the score, the direction, the power up and the effect timers it started with, followed by one
+ * record for every change made during the tick. A change is the Snake moving or growing, a
+ * FoodPellet moving, or a tile joining or leaving the free tiles of the Board. Undoing a tick reads
+ * its records from last to first and reverses each one on the existing Snake and Board, so a
+ * tick costs the same to undo as to record and neither allocates.
+ *
+ * Records are ints in a ring buffer of fixed size, with the code of each record after its
+ * arguments so the buffer can be read backwards. When the buffer or the number of ticks is full
+ * the oldest tick is forgotten. Free tiles are put back in their exact old order, because
+ * FoodPellets are placed by picking from that order, so a rewound game plays on the same as if
+ * it had been played to that tick from the start.
+ *
+ * Only changes made by GameEngine.step are recorded.
+ *
+ * @author Brendan Bamberg
+ */
+
+public class RewindBuffer {
+    // Room for an average tick, a tick where the Snake eats a lot takes more and pushes out old ticks
+    private static final int INTS_PER_TICK = 64;
+    private static final Snake.Direction[] DIRECTIONS = Snake.Direction.values();
+    private static final Effects.Type[] EFFECT_TYPES = Effects.Type.values();
+    private static final int HEADER_SIZE = 4 + EFFECT_TYPES.length;
+    
+    private static final int MOVED = 1;
+    private static final int GREW = 2;
+    private static final int PELLET_MOVED = 3;
+    private static final int CELL_TAKEN = 4;
+    private static final int CELL_FREED = 5;
+    
+    private final GameEngine engine;
+    private final int[] data;
+    private final int mask;
+    // Where in data each stored tick starts, oldest first from a moving position
+    private final long[] tickStarts;
+    private int newestTick;
+    private int tickCount;
+    private long writePosition;
+    private long currentStart;
+    private boolean isRecording;
+    
+    /**
+     * Create a RewindBuffer and start recording every tick of a game
+     *
+     * @param engine   The GameEngine playing the game
+     * @param maxTicks An integer representing the largest number of ticks that can be undone
+     */
+    public RewindBuffer(GameEngine engine, int maxTicks) {
+        if (maxTicks <= 0)
+            throw new IllegalArgumentException("maxTicks must be positive");
+        this.engine = engine;
+        int capacity = Integer.highestOneBit(Math.max(1, maxTicks * INTS_PER_TICK - 1)) << 1;
+        data = new int[capacity];
+        mask = capacity - 1;
+        tickStarts = new long[maxTicks];
+        newestTick = maxTicks - 1;
+        engine.setRewindBuffer(this);
+    }
+    
+    /**
+     * Start recording a tick, called by the GameEngine before it changes anything
+     */
+    void beginTick() {
+        if (tickCount == tickStarts.length) {
+            tickCount--;
+        }
+        currentStart = writePosition;
+        isRecording = true;
+        Snake snake = engine.getSnake();
+        long randomState = engine.getRandom().getState();
+        put((int) (randomState >>> 32));
+        put((int) randomState);
+        put(engine.getScoreManager().getCurrentScore());
+        put(snake.getDirection().ordinal() | (snake.isPoweredUp() ? 4 : 0));
+        for (Effects.Type type : EFFECT_TYPES) {
+            put(engine.getEffects().getRemaining(type));
+        }
+    }
+    
+    /**
+     * Finish recording a tick, called by the GameEngine after the tick
+     */
+    void endTick() {
+        if (!isRecording) {
+            return;
+        }
+        isRecording = false;
+        newestTick = (newestTick + 1) % tickStarts.length;
+        tickStarts[newestTick] = currentStart;
+        tickCount++;
+    }
+    
+    /**
+     * Record that the Snake moved, before the Board is told
+     *
+     * @param oldTail The packed cell the tail was on before the move
+     */
+    void moved(int oldTail) {
+        if (isRecording) {
+            put(oldTail);
+            put(MOVED);
+        }
+    }
+    
+    /**
+     * Record that the Snake grew
+     */
+    void grew() {
+        if (isRecording) {
+            put(GREW);
+        }
+    }
+    
+    /**
+     * Record how a FoodPellet looked and where it was before it respawned
+     *
+     * @param index      The position of the FoodPellet in the list of the Board
+     * @param cell       The packed cell the FoodPellet was on, or -1 if it was not on the board
+     * @param colorIndex An integer representing the color of the FoodPellet
+     * @param isPowerUp  A boolean representing whether the FoodPellet was a power up
+     */
+    void pelletMoved(int index, int cell, int colorIndex, boolean isPowerUp) {
+        if (isRecording) {
+            put(index);
+            put(cell);
+            put(colorIndex << 1 | (isPowerUp ? 1 : 0));
+            put(PELLET_MOVED);
+        }
+    }
+    
+    /**
+     * Record that a tile left the free tiles of the Board
+     *
+     * @param index    The index of the tile on the board
+     * @param position The position the tile had in the free tiles
+     */
+    void cellTaken(int index, int position) {
+        if (isRecording) {
+            put(index);
+            put(position);
+            put(CELL_TAKEN);
+        }
+    }
+    
+    /**
+     * Record that a tile joined the free tiles of the Board
+     *
+     * @param index The index of the tile on the board
+     */
+    void cellFreed(int index) {
+        if (isRecording) {
+            put(index);
+            put(CELL_FREED);
+        }
+    }
+    
+    /**
+     * Add an int to the tick being recorded, forgetting the oldest ticks if the buffer is full
+     */
+    private void put(int value) {
+        while (tickCount > 0 && writePosition - oldestStart() >= data.length) {
+            tickCount--;
+        }
+        if (tickCount == 0 && writePosition - currentStart >= data.length) {
+            // This tick alone does not fit, so it can not be undone either
+            isRecording = false;
+            return;
+        }
+        data[(int) writePosition & mask] = value;
+        writePosition++;
+    }
+    
+    private long oldestStart() {
+        return tickStarts[(newestTick - tickCount + 1 + tickStarts.length) % tickStarts.length];
+    }
+    
+    private int get(long position) {
+        return data[(int) position & mask];
+    }
+    
+    /**
+     * Undo the last tick, putting the game back the way it was before it
+     *
+     * @return True if a tick was undone, False if there is nothing left to undo
+     */
+    public boolean stepBack() {
+        if (tickCount == 0) {
+            return false;
+        }
+        long start = tickStarts[newestTick];
+        long position = writePosition;
+        Board board = engine.getBoard();
+        Snake snake = engine.getSnake();
+        board.setUndoing(true);
+        try {
+            while (position > start + HEADER_SIZE) {
+                int code = get(--position);
+                switch (code) {
+                    case MOVED:
+                        snake.unmove(get(--position));
+                        break;
+                    case GREW:
+                        snake.shrink();
+                        break;
+                    case PELLET_MOVED:
+                        int appearance = get(--position);
+                        int cell = get(--position);
+                        FoodPellet pellet = board.getFoodPellets().get(get(--position));
+                        pellet.removeFromBoard();
+                        pellet.restore(cell, appearance >> 1, (appearance & 1) != 0);
+                        break;
+                    case CELL_TAKEN:
+                        int freePosition = get(--position);
+                        board.restoreFreeCell(get(--position), freePosition);
+                        break;
+                    case CELL_FREED:
+                        board.unreleaseFreeCell(get(--position));
+                        break;
+                    default:
+                        throw new IllegalStateException("bad rewind record " + code);
+                }
+            }
+        } finally {
+            board.setUndoing(false);
+        }
+        
+        engine.getRandom().setState((long) get(start) << 32 | (get(start + 1) & 0xFFFFFFFFL));
+        engine.getScoreManager().resetScore();
+        engine.getScoreManager().updateScore(get(start + 2));
+        int flags = get(start + 3);
+        snake.restoreDirection(DIRECTIONS[flags & 3]);
+        snake.setPoweredUp((flags & 4) != 0);
+        for (int i = 0; i < EFFECT_TYPES.length; i++) {
+            engine.getEffects().stop(EFFECT_TYPES[i]);
+            engine.getEffects().start(EFFECT_TYPES[i], get(start + 4 + i));
+        }
+        engine.restoreProgress(engine.getTick() - 1, false);
+        
+        writePosition = start;
+        newestTick = (newestTick - 1 + tickStarts.length) % tickStarts.length;
+        tickCount--;
+        return true;
+    }
+    
+    /**
+     * Undo up to a number of ticks
+     *
+     * @param ticks An integer representing how many ticks to undo
+     * @return An integer representing how many ticks were undone
+     */
+    public int rewind(int ticks) {
+        int undone = 0;
+        while (undone < ticks && stepBack()) {
+            undone++;
+        }
+        return undone;
+    }
+    
+    /**
+     * Get the number of ticks that can be undone
+     *
+     * @return An integer from 0 up to the maxTicks the RewindBuffer was created with
+     */
+    public int getTickCount() {
+        return tickCount;
+    }
+    
+    /**
+     * Forget every recorded tick, for example after the game was changed some other way
+     */
+    public void clear() {
+        tickCount = 0;
+        writePosition = 0;
+    }
+}
@@ -0,0 +1,320 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranks every account by high score so a player can find their place without sorting all accounts
+ *
+ * The accounts are kept in a treap, a binary search tree balanced by random priorities, ordered
+ * by score from highest to lowest and then by username. Each node knows the size of its subtree,
+ * so finding the rank of an account, the accounts at a range of ranks, or how many accounts beat
+ * a score takes O(log n) on average. Ranks start at 1.
+ *
+ * @author Krish Sachdeva
+ */
+
+class ScoreIndex {
+	private static final Comparator<Node> BY_USERNAME = (a, b) -> a.account.getUsername().compareTo(b.account.getUsername());
+
+	private Map<String, Node> nodes;
+	private final GameRandom random;
+	private Node root;
+
+	/**
+	 * Creates an empty index
+	 */
+	ScoreIndex() {
+		nodes = new HashMap<>();
+		random = new GameRandom(0x5C0BE5L);
+	}
+
+	/**
+	 * Adds an account or moves it to the place of its current high score
+	 *
+	 * @param account The SnakeAccount that was added or changed
+	 */
+	synchronized void update(SnakeAccount account) {
+		String username = account.getUsername();
+		int score = account.getHighScore();
+		Node old = nodes.get(username);
+		if (old != null) {
+			if (old.score == score)
+				return;
+			root = remove(root, old.score, username);
+		}
+		Node node = new Node(account, score, random.nextInt());
+		nodes.put(username, node);
+		root = insert(root, node);
+	}
+
+	/**
+	 * Replaces the index with every account of a collection, used once all accounts are loaded
+	 *
+	 * The accounts are sorted once and the tree is built balanced from the middle out, instead of
+	 * inserting them one at a time. Scores are sorted as packed longs and usernames are only
+	 * compared between accounts with equal scores. Random priorities are sorted and handed out
+	 * level by level, parents first, so the tree is still a valid treap for the updates that follow.
+	 *
+	 * @param accounts Every SnakeAccount of the collection
+	 */
+	synchronized void rebuild(Collection<SnakeAccount> accounts) {
+		SnakeAccount[] unsorted = accounts.toArray(new SnakeAccount[0]);
+		int count = unsorted.length;
+		// The highest score first, the position in unsorted in the low bits
+		long[] keys = new long[count];
+		for (int i = 0; i < count; i++)
+			keys[i] = (long) ~unsorted[i].getHighScore() << 32 | i;
+		Arrays.sort(keys);
+
+		Node[] sorted = new Node[count];
+		for (int i = 0; i < count; i++)
+			sorted[i] = new Node(unsorted[(int) keys[i]], ~(int) (keys[i] >> 32), 0);
+		for (int from = 0, to; from < count; from = to) {
+			to = from + 1;
+			while (to < count && sorted[to].score == sorted[from].score)
+				to++;
+			if (to - from > 1)
+				Arrays.sort(sorted, from, to, BY_USERNAME);
+		}
+
+		nodes = new HashMap<>(Math.max(16, (int) (count / 0.75f) + 1));
+		for (int i = 0; i < count; i++)
+			nodes.put(sorted[i].account.getUsername(), sorted[i]);
+		root = build(sorted, 0, count);
+
+		int[] priorities = new int[count];
+		for (int i = 0; i < count; i++)
+			priorities[i] = random.nextInt();
+		Arrays.sort(priorities);
+		ArrayDeque<Node> level = new ArrayDeque<>();
+		if (root != null)
+			level.add(root);
+		for (int i = count - 1; !level.isEmpty(); i--) {
+			Node node = level.poll();
+			node.priority = priorities[i];
+			if (node.left != null)
+				level.add(node.left);
+			if (node.right != null)
+				level.add(node.right);
+		}
+	}
+
+	/**
+	 * Builds a balanced subtree from a sorted range of nodes
+	 *
+	 * @return The root of the subtree, or null if the range is empty
+	 */
+	private static Node build(Node[] sorted, int from, int to) {
+		if (from >= to)
+			return null;
+		int middle = (from + to) >>> 1;
+		Node node = sorted[middle];
+		node.left = build(sorted, from, middle);
+		node.right = build(sorted, middle + 1, to);
+		node.update();
+		return node;
+	}
+
+	/**
+	 * Gets the number of accounts in the index
+	 *
+	 * @return An integer representing the number of accounts
+	 */
+	synchronized int size() {
+		return size(root);
+	}
+
+	/**
+	 * Gets the rank of an account, 1 being the highest score
+	 *
+	 * @param username The username of the account
+	 * @return The rank of the account, or -1 if it is not in the index
+	 */
+	synchronized int rank(String username) {
+		Node target = nodes.get(username);
+		if (target == null)
+			return -1;
+		int before = 0;
+		Node node = root;
+		while (node != target) {
+			if (compare(target.score, username, node) < 0) {
+				node = node.left;
+			} else {
+				before += size(node.left) + 1;
+				node = node.right;
+			}
+		}
+		return before + size(node.left) + 1;
+	}
+
+	/**
+	 * Counts the accounts with a high score above a given score
+	 *
+	 * @param score The score to compare against
+	 * @return The number of accounts scoring strictly more
+	 */
+	synchronized int countAbove(int score) {
+		int count = 0;
+		Node node = root;
+		while (node != null) {
+			if (node.score > score) {
+				count += size(node.left) + 1;
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the accounts holding a range of ranks
+	 *
+	 * @param firstRank The rank of the first account, starting at 1
+	 * @param count     The largest number of accounts returned
+	 * @return A new list of the accounts ranked firstRank and below, highest score first
+	 */
+	synchronized List<SnakeAccount> range(int firstRank, int count) {
+		List<SnakeAccount> result = new ArrayList<>(Math.max(0, Math.min(count, size(root))));
+		collect(root, Math.max(firstRank, 1) - 1, count, result);
+		return result;
+	}
+
+	/**
+	 * Appends in order the accounts of a subtree from a position on, until enough are collected
+	 *
+	 * @param node   The root of the subtree
+	 * @param skip   The number of accounts of the subtree to skip
+	 * @param count  The number of accounts wanted in total
+	 * @param result The list the accounts are added to
+	 */
+	private static void collect(Node node, int skip, int count, List<SnakeAccount> result) {
+		while (node != null && result.size() < count) {
+			int leftSize = size(node.left);
+			if (skip < leftSize)
+				collect(node.left, skip, count, result);
+			if (result.size() >= count)
+				return;
+			if (skip <= leftSize)
+				result.add(node.account);
+			skip = Math.max(0, skip - leftSize - 1);
+			node = node.right;
+		}
+	}
+
+	/**
+	 * Orders a score and username against a node, lower meaning a better rank
+	 */
+	private static int compare(int score, String username, Node node) {
+		if (score != node.score)
+			return Integer.compare(node.score, score);
+		return username.compareTo(node.account.getUsername());
+	}
+
+	private static Node insert(Node node, Node added) {
+		if (node == null)
+			return added;
+		if (added.priority > node.priority) {
+			split(node, added.score, added.account.getUsername(), added);
+			added.update();
+			return added;
+		}
+		if (compare(added.score, added.account.getUsername(), node) < 0)
+			node.left = insert(node.left, added);
+		else
+			node.right = insert(node.right, added);
+		node.update();
+		return node;
+	}
+
+	/**
+	 * Splits a subtree around a key, storing the lower part in into.left and the rest in into.right
+	 */
+	private static void split(Node node, int score, String username, Node into) {
+		if (node == null) {
+			into.left = null;
+			into.right = null;
+			return;
+		}
+		if (compare(score, username, node) < 0) {
+			split(node.left, score, username, into);
+			node.left = into.right;
+			node.update();
+			into.right = node;
+		} else {
+			split(node.right, score, username, into);
+			node.right = into.left;
+			node.update();
+			into.left = node;
+		}
+	}
+
+	private static Node remove(Node node, int score, String username) {
+		if (node == null)
+			return null;
+		int order = compare(score, username, node);
+		if (order == 0)
+			return merge(node.left, node.right);
+		if (order < 0)
+			node.left = remove(node.left, score, username);
+		else
+			node.right = remove(node.right, score, username);
+		node.update();
+		return node;
+	}
+
+	/**
+	 * Joins two subtrees where every key of the first comes before every key of the second
+	 */
+	private static Node merge(Node first, Node second) {
+		if (first == null)
+			return second;
+		if (second == null)
+			return first;
+		if (first.priority > second.priority) {
+			first.right = merge(first.right, second);
+			first.update();
+			return first;
+		}
+		second.left = merge(first, second.left);
+		second.update();
+		return second;
+	}
+
+	private static int size(Node node) {
+		return node == null ? 0 : node.size;
+	}
+
+	/**
+	 * An account in the tree with the score it was placed with
+	 */
+	private static final class Node {
+		private final SnakeAccount account;
+		private final int score;
+		private int priority;
+		private Node left;
+		private Node right;
+		private int size;
+
+		Node(SnakeAccount account, int score, int priority) {
+			this.account = account;
+			this.score = score;
+			this.priority = priority;
+			this.size = 1;
+		}
+
+		/**
+		 * Recomputes the subtree size after a child changed
+		 */
+		void update() {
+			size = size(left) + size(right) + 1;
+		}
+	}
+}
@@ -1,9 +1,6 @@
 package model;
 
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Color;
-
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.List;
 
 /**
@@ -14,9 +11,18 @@ import java.util.List;
 
 public class Snake {
     private static int TILE_SIZE = 20;
-    private final List<Tile> body;
+    private static int INITIAL_CAPACITY = 16;
+    
+    // Ring buffer of packed cells, body[headIndex] is the head
+    private int[] body;
+    private int headIndex;
+    private int length;
+    private Tile head;
+    private final List<Tile> bodyView;
     private Direction direction;
-    private Color color;
+    private Board board;
+    // Sum of the StateHash keys of every segment and of the head, kept up to date by move and grow
+    private long hash;
     
     private boolean isPoweredUp;
     
@@ -24,24 +30,24 @@ public class Snake {
      * Create a new Snake object with default location and direction
      */
     public Snake() {
-        isPoweredUp = false;
-        body = new ArrayList<>();
-        body.add(new Tile(10, 10));
-        direction = Direction.RIGHT;
+        this(10, 10);
     }
     
     /**
-     * Create a new Snake object with a specified location and color with the default direction
+     * Create a new Snake object with a specified location with the default direction
      *
-     * @param x     The x-coordinate of the desired location
-     * @param y     The y-coordinate of the desired location
-     * @param color The desired color of the Snake
+     * @param x The x-coordinate of the desired location
+     * @param y The y-coordinate of the desired location
      */
-    public Snake(int x, int y, Color color) {
+    public Snake(int x, int y) {
         isPoweredUp = false;
-        this.body = new ArrayList<>();
-        body.add(new Tile(x, y));
-        this.color = color;
+        body = new int[INITIAL_CAPACITY];
+        head = new Tile(x, y);
+        body[0] = Tile.pack(head.getTileX(), head.getTileY());
+        headIndex = 0;
+        length = 1;
+        hash = StateHash.segmentKey(body[0]) + StateHash.headKey(body[0]);
+        bodyView = new BodyView();
         direction = Direction.RIGHT;
     }
     
@@ -51,86 +57,208 @@ public class Snake {
      * @return a Point object with the x- and y-coordinate of the head of the Snake
      */
     public Tile getHead() {
-        return body.get(0);
+        return head;
     }
     
     /**
-     * Draw the snake to the screen one segment at a time
+     * Get the packed cell of the head of the Snake
      *
-     * @param gc A GraphicsContext object used to draw to the screen
+     * @return An integer created by {@link Tile#pack(int, int)}
      */
-    public void draw(GraphicsContext gc) {
-        if (isPoweredUp) {
-            gc.setGlobalAlpha(0.2);
-            gc.setFill(Color.GOLD);
-            Tile head = body.get(0);
-            
-            for (int i = -2; i <= 2; i++) {
-                for (int j = -2; j <= 2; j++) {
-                    gc.fillRect(head.getX() + i * TILE_SIZE, head.getY() + j * TILE_SIZE, TILE_SIZE, TILE_SIZE);
-                }
+    public int getHeadCell() {
+        return body[headIndex];
+    }
+    
+    /**
+     * Get the packed cell of the segment at a given position, where 0 is the head
+     *
+     * @param index The position of the segment counted from the head
+     * @return An integer created by {@link Tile#pack(int, int)}
+     */
+    public int getCell(int index) {
+        return body[(headIndex + index) & (body.length - 1)];
+    }
+    
+    /**
+     * Get the hash of the cells the Snake covers and of its head, updated in O(1) on every move and grow
+     *
+     * @return A long that is the same for any two Snakes with the same segments and head
+     */
+    long getHash() {
+        return hash;
+    }
+    
+    /**
+     * Attach the Snake to a Board so the Board's occupancy grid follows every move and grow
+     *
+     * @param board The Board the Snake is playing on
+     */
+    void setBoard(Board board) {
+        this.board = board;
+        head = board.getTile(getHeadCell());
+        for (int i = 0; i < length; i++) {
+            if (i == 0 || getCell(i) != getCell(i - 1)) {
+                board.enterCell(getCell(i));
             }
-            gc.setGlobalAlpha(1);
-        }
-        
-        gc.setFill(color);
-        // Draw each body segment of the snake
-        for (Tile point : body) {
-            gc.fillRect(point.getTileX() * TILE_SIZE, point.getTileY() * TILE_SIZE, TILE_SIZE, TILE_SIZE);
         }
     }
     
     /**
      * Get the entire Snake's body
      *
-     * @return A List of Point objects that give the coordinates of each segment
+     * @return A read-only List of Tile objects that give the coordinates of each segment, head first
      */
     public List<Tile> getBody() {
-        return body;
+        return bodyView;
     }
     
     /**
      * Move the Snake by one tile in the current direction
      */
     public void move() {
-        Tile head = body.get(0);
-        Tile newHead = new Tile((head.getTileX() + direction.getX()) * TILE_SIZE,
-                (head.getTileY() + direction.getY()) * TILE_SIZE);
-        body.add(0, newHead);
-        body.remove(body.size() - 1);
+        int cell = body[headIndex];
+        int newHead = Tile.pack(Tile.unpackX(cell) + direction.getX(), Tile.unpackY(cell) + direction.getY());
+        int oldTail = getCell(length - 1);
+        hash += StateHash.segmentKey(newHead) - StateHash.segmentKey(oldTail)
+                + StateHash.headKey(newHead) - StateHash.headKey(cell);
+        
+        // Pushing a new head and dropping the tail leaves the length unchanged
+        headIndex = (headIndex - 1) & (body.length - 1);
+        body[headIndex] = newHead;
+        head = tileOf(newHead);
+        
+        if (board != null) {
+            RewindBuffer rewindBuffer = board.getRewindBuffer();
+            if (rewindBuffer != null) {
+                rewindBuffer.moved(oldTail);
+            }
+            board.enterCell(newHead);
+            // A grown tail is stacked on the same tile, which stays covered until the last copy leaves
+            if (getCell(length - 1) != oldTail) {
+                board.leaveCell(oldTail);
+            }
+        }
     }
     
     /**
      * Grow the Snake by one segment if the Snake has consumed a Pellet
+     *
+     * The new segment sits on top of the current tail and is uncovered on the next move
      */
     public void grow() {
-        Tile last = body.get(body.size() - 1);
-        Tile newLast = new Tile((last.getTileX() - direction.getX()) * TILE_SIZE,
-                (last.getTileX() - direction.getY()) * TILE_SIZE);
-        body.add(newLast);
+        if (length == body.length) {
+            resize();
+        }
+        int tail = getCell(length - 1);
+        body[(headIndex + length) & (body.length - 1)] = tail;
+        length++;
+        hash += StateHash.segmentKey(tail);
+        if (board != null && board.getRewindBuffer() != null) {
+            board.getRewindBuffer().grew();
+        }
     }
     
     /**
-     * Set whether the snake is powered up, start a timer if it is
+     * Undo a call to move, used by a RewindBuffer
      *
-     * @param newSate A boolean representing whether the snake is now powered up or not
+     * @param oldTail The packed cell the tail was on before the move
      */
-    public void setPoweredUp(boolean newSate) {
-        isPoweredUp = newSate;
+    void unmove(int oldTail) {
+        int newHead = body[headIndex];
+        int tail = getCell(length - 1);
+        headIndex = (headIndex + 1) & (body.length - 1);
+        // The move may have written the new head over the old tail when the ring buffer was full
+        body[(headIndex + length - 1) & (body.length - 1)] = oldTail;
+        int oldHead = body[headIndex];
+        hash -= StateHash.segmentKey(newHead) - StateHash.segmentKey(oldTail)
+                + StateHash.headKey(newHead) - StateHash.headKey(oldHead);
+        head = tileOf(oldHead);
         
-        // Set a 15-second window for the power up to be active
-        if (isPoweredUp) {
-            new Thread(() -> {
-                try {
-                    Thread.sleep(15000);
-                    isPoweredUp = false;
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+        if (board != null) {
+            if (tail != oldTail) {
+                board.enterCell(oldTail);
+            }
+            board.leaveCell(newHead);
+        }
+    }
+    
+    /**
+     * Undo a call to grow, used by a RewindBuffer
+     */
+    void shrink() {
+        length--;
+        hash -= StateHash.segmentKey(getCell(length));
+    }
+    
+    /**
+     * Replace the body and direction of the Snake, used to restore a saved game
+     *
+     * @param cells     Packed cells created by {@link Tile#pack(int, int)}, head first
+     * @param count     The number of cells of the body
+     * @param direction The direction the Snake is moving
+     */
+    void restore(int[] cells, int count, Direction direction) {
+        if (board != null) {
+            for (int i = 0; i < length; i++) {
+                if (i == 0 || getCell(i) != getCell(i - 1)) {
+                    board.leaveCell(getCell(i));
                 }
-            }).start();
+            }
+        }
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < count) {
+            capacity *= 2;
+        }
+        body = new int[capacity];
+        System.arraycopy(cells, 0, body, 0, count);
+        headIndex = 0;
+        length = count;
+        this.direction = direction;
+        hash = StateHash.headKey(body[0]);
+        for (int i = 0; i < count; i++) {
+            hash += StateHash.segmentKey(body[i]);
+        }
+        if (board != null) {
+            setBoard(board);
+        } else {
+            head = tileOf(body[0]);
         }
     }
     
+    /**
+     * Get the Tile for a packed cell, shared with the Board when the Snake is on one
+     *
+     * @param cell A packed cell created by {@link Tile#pack(int, int)}
+     * @return A Tile object for the cell
+     */
+    private Tile tileOf(int cell) {
+        if (board != null) {
+            return board.getTile(cell);
+        }
+        return new Tile(Tile.unpackX(cell) * TILE_SIZE, Tile.unpackY(cell) * TILE_SIZE);
+    }
+    
+    /**
+     * Double the capacity of the ring buffer, unwrapping it so the head is at index 0
+     */
+    private void resize() {
+        int[] newBody = new int[body.length * 2];
+        int firstPart = body.length - headIndex;
+        System.arraycopy(body, headIndex, newBody, 0, firstPart);
+        System.arraycopy(body, 0, newBody, firstPart, headIndex);
+        body = newBody;
+        headIndex = 0;
+    }
+    
+    /**
+     * Set whether the snake is powered up, the GameEngine keeps this in step with its Effects
+     *
+     * @param newSate A boolean representing whether the snake is now powered up or not
+     */
+    public void setPoweredUp(boolean newSate) {
+        isPoweredUp = newSate;
+    }
+    
     /**
      * Get whether the snake has a power up
      *
@@ -156,13 +284,22 @@ public class Snake {
         this.direction = direction;
     }
     
+    /**
+     * Set the direction of the Snake even if it is the reverse of the current one, used to restore a saved game
+     *
+     * @param direction The direction the Snake was moving
+     */
+    void restoreDirection(Direction direction) {
+        this.direction = direction;
+    }
+    
     /**
      * Get the current size of the Snake
      *
      * @return An integer representing the size of the Snake
      */
     public int size() {
-        return body.size();
+        return length;
     }
     
     /**
@@ -180,15 +317,41 @@ public class Snake {
      * @return True if there is a collision between the head and the body, False otherwise
      */
     public boolean hasCollidedWithSelf() {
-        Tile head = getHead();
-        for (int i = 1; i < body.size(); i++) {
-            if (head.equals(body.get(i))) {
+        int headCell = getHeadCell();
+        if (board != null) {
+            return board.segmentsAt(headCell) > 1;
+        }
+        
+        for (int i = 1; i < length; i++) {
+            if (getCell(i) == headCell) {
                 return true;
             }
         }
         return false;
     }
     
+    /**
+     * A read-only List view over the ring buffer, Tiles are created on access
+     */
+    private class BodyView extends AbstractList<Tile> {
+        
+        @Override
+        public Tile get(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+            }
+            if (index == 0) {
+                return head;
+            }
+            return tileOf(getCell(index));
+        }
+        
+        @Override
+        public int size() {
+            return length;
+        }
+    }
+    
     /**
      * An enum that represents one of the four directions: Up, Down, Left, or Right
      */
@@ -12,7 +12,9 @@ public class SnakeAccount implements Serializable {
 	private static final long serialVersionUID = 1L;
 	private String username;
 	private String password;
-	private int highScore;
+	private volatile int highScore;
+	// The collection holding this account, told about new high scores so it can save them
+	private transient SnakeAccountCollection owner;
 
 	public SnakeAccount(String username, String password) {
 		this.username = username;
@@ -33,9 +35,38 @@ public class SnakeAccount implements Serializable {
 
 	public void setHighScore(int score) {
 		this.highScore = score;
+		if (owner != null)
+			owner.highScoreChanged(this);
 	}
 
 	public int getHighScore() {
 		return this.highScore;
 	}
+
+	/**
+	 * Gets the password of the account, used to save it
+	 *
+	 * @return password A String
+	 */
+	String getPassword() {
+		return password;
+	}
+
+	/**
+	 * Sets the collection that is told when the high score changes
+	 *
+	 * @param owner The SnakeAccountCollection holding this account
+	 */
+	void setOwner(SnakeAccountCollection owner) {
+		this.owner = owner;
+	}
+
+	/**
+	 * Sets the high score without telling the collection, used while loading saved changes
+	 *
+	 * @param score The saved high score
+	 */
+	void restoreHighScore(int score) {
+		this.highScore = score;
+	}
 }
\ No newline at end of file
@@ -1,71 +1,156 @@
 package model;
 
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import javafx.scene.control.Alert;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents the collection of Snake Accounts
  *
+ * Accounts are indexed by username, so looking one up or checking that a name is free takes the
+ * same time however many accounts exist. The collection can be used from several threads at once.
+ *
  * @author Krish Sachdeva
  */
 
 public class SnakeAccountCollection implements Serializable {
 	private static final long serialVersionUID = 1L;
-	private List<SnakeAccount> accounts;
-	public int overallHighScore;
+	public static final int LEADERBOARD_PLACES = 5;
+	private static final String SNAPSHOT_FILE = "accounts.dat";
+	// Files written by older versions, read once and replaced by the snapshot
+	private static final String LEGACY_ACCOUNTS_FILE = "jukebox_accounts.ser";
+	private static final String LEGACY_HIGH_SCORE_FILE = "overall_high_score.ser";
+
+	private ConcurrentHashMap<String, SnakeAccount> accounts;
+	private volatile int overallHighScore;
+	private transient Path directory;
+	private transient AccountJournal journal;
+	private transient AccountSaver saver;
+	private transient TopScores topScores;
+	private transient ScoreIndex scoreIndex;
 
 	public SnakeAccountCollection() {
-		accounts = new ArrayList<>();
+		this(Paths.get(""));
+	}
+
+	/**
+	 * Creates a collection saved in a given directory
+	 *
+	 * @param directory The directory holding the saved accounts
+	 */
+	public SnakeAccountCollection(Path directory) {
+		this.directory = directory;
+		accounts = new ConcurrentHashMap<>();
+		topScores = new TopScores(LEADERBOARD_PLACES);
+		scoreIndex = new ScoreIndex();
 		addAccount(new SnakeAccount("Guest", ""));
-		readOverallHighScore();
+		journal = new AccountJournal(directory);
+		saver = new AccountSaver(this);
 	}
 
 	/**
-	 * Retrieves the list of snake accounts
+	 * Retrieves the snake accounts, in no particular order
 	 *
-	 * @return accounts A list of SnakeAccounts
+	 * @return accounts An unmodifiable view of the SnakeAccounts
 	 */
-	public List<SnakeAccount> getAccounts() {
-		return accounts;
+	public Collection<SnakeAccount> getAccounts() {
+		return Collections.unmodifiableCollection(accounts.values());
 	}
 
 	/**
 	 * Gets a SnakeAccount given its username
 	 *
-	 * @return account A single SnakeAccount
+	 * @param username The username of the account
+	 * @return account A single SnakeAccount, or null if no account has the username
 	 */
 	public SnakeAccount getAccount(String username) {
-		for (SnakeAccount account : accounts) {
-			if (account.getUsername().equals(username)) {
-				return account;
-			}
-		}
-		return null;
+		return accounts.get(username);
+	}
+
+	/**
+	 * Gets the accounts with the highest scores, kept up to date as scores change
+	 *
+	 * @return A list of at most LEADERBOARD_PLACES SnakeAccounts, the highest score first
+	 */
+	public List<SnakeAccount> getTopAccounts() {
+		return topScores.get();
+	}
+
+	/**
+	 * Gets the rank of an account among all accounts, 1 being the highest high score
+	 *
+	 * @param username The username of the account
+	 * @return The rank of the account, or -1 if no account has the username
+	 */
+	public int getRank(String username) {
+		return scoreIndex.rank(username);
+	}
+
+	/**
+	 * Gets the accounts holding a range of ranks, used to show the players around a player
+	 *
+	 * @param firstRank The rank of the first account, starting at 1
+	 * @param count     The largest number of accounts returned
+	 * @return A list of SnakeAccounts, the highest score first
+	 */
+	public List<SnakeAccount> getRanked(int firstRank, int count) {
+		return scoreIndex.range(firstRank, count);
+	}
+
+	/**
+	 * Counts the accounts whose high score is above a score
+	 *
+	 * @param score The score to compare against
+	 * @return The number of accounts scoring strictly more
+	 */
+	public int countAbove(int score) {
+		return scoreIndex.countAbove(score);
 	}
 
 	/**
-	 * Adds an account to the snake account collection
+	 * Adds an account to the snake account collection unless its username is already taken
 	 *
+	 * @param account The SnakeAccount to be added
 	 * @return A boolean showing whether it was successful or not
+	 * @throws IllegalArgumentException If the username and password are too long to be saved
 	 */
 	public boolean addAccount(SnakeAccount account) {
-		for (SnakeAccount existingAccount : accounts) {
-			if (existingAccount.getUsername().equals(account.getUsername())) {
-				showAlert("Username already taken!");
-				return false;
-			}
+		// Checked before the account is added, so an account that can not be saved is never used
+		if (!AccountCodec.fits(account.getUsername(), account.getPassword()))
+			throw new IllegalArgumentException("username and password are too long");
+		if (accounts.putIfAbsent(account.getUsername(), account) != null)
+			return false;
+		account.setOwner(this);
+		placeOnLeaderboard(account);
+		if (journal != null) {
+			journal.recordCreate(account.getUsername(), account.getPassword());
+			saver.requestSave();
 		}
-		accounts.add(account);
 		return true;
 	}
 
+	/**
+	 * Records a changed high score and queues a save
+	 *
+	 * @param account The SnakeAccount whose high score changed
+	 */
+	void highScoreChanged(SnakeAccount account) {
+		placeOnLeaderboard(account);
+		if (journal != null) {
+			journal.recordHighScore(account.getUsername(), account.getHighScore());
+			saver.requestSave();
+		}
+	}
+
 	/**
 	 * Returns the overall high score 
 	 *
@@ -82,44 +167,99 @@ public class SnakeAccountCollection implements Serializable {
 	 */
 	public void updateOverallHighScore(int newHighScore) {
 		overallHighScore = newHighScore;
+		journal.recordOverallHighScore(newHighScore);
+		saver.requestSave();
 	}
 
 	/**
-	 * Writes the current state of the account collection to the ser file
+	 * Queues a save of the changes made so far, it runs on a background thread and this returns
+	 * right away. Changes are also saved on their own shortly after they are made
 	 *
 	 */
 	public void writeState() {
-		try (FileOutputStream fileOut = new FileOutputStream("jukebox_accounts.ser");
-				ObjectOutputStream objectOut = new ObjectOutputStream(fileOut)) {
-			objectOut.writeObject(accounts);
-			writeOverallHighScore();
+		saver.requestSave();
+	}
 
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+	/**
+	 * Saves the changes made so far and waits until they are on disk
+	 *
+	 * @throws IOException          If the accounts can not be saved
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	public void flush() throws IOException, InterruptedException {
+		saver.flush();
+	}
+
+	/**
+	 * Saves the remaining changes in the background and stops saving, used when the game exits.
+	 * This does not wait for the disk, the program keeps running until the save is finished
+	 */
+	public void close() {
+		saver.close();
 	}
 
 	/**
-	 * Reads the current state of the account collection from ser file
+	 * Appends the changes made since the last save to the journal, and writes a new snapshot once
+	 * the journal has grown long. Only called on the thread of the AccountSaver
 	 *
+	 * @throws IOException If the journal or snapshot can not be written
 	 */
-	public void readState() {
-		try (ObjectInputStream inFile = new ObjectInputStream(new FileInputStream("jukebox_accounts.ser"))) {
-			for (SnakeAccount account : (List<SnakeAccount>) inFile.readObject()) {
-				if (!account.getUsername().isEmpty())
-	                accounts.add(account);
+	void save() throws IOException {
+		while (journal.hasPending())
+			journal.flush();
+		if (journal.needsCompaction())
+			compact();
+	}
+
+	/**
+	 * Reads the snapshot of the account collection and replays the journal on top of it. Accounts
+	 * saved by older versions are converted to the snapshot format the first time, and a compaction
+	 * interrupted by a crash is finished. The rankings
+	 * are built once at the end instead of for every account read
+	 *
+	 * @throws IOException If a saved file exists but can not be read
+	 */
+	public void readState() throws IOException {
+		Path snapshot = directory.resolve(SNAPSHOT_FILE);
+		try {
+			if (Files.exists(snapshot)) {
+				AccountCodec.readSnapshot(snapshot, this);
+			} else if (Files.exists(directory.resolve(LEGACY_ACCOUNTS_FILE))) {
+				readLegacyState();
+				AccountCodec.writeSnapshot(snapshot, accounts.values(), overallHighScore);
 			}
-		} catch (IOException | ClassNotFoundException e) {
-			e.printStackTrace();
+			journal.replay(this);
+			if (journal.isCompacting()) {
+				// The last compaction was cut short, its changes are now in memory so it is finished here.
+				// Until the rotated journal is gone no new compaction can start
+				AccountCodec.writeSnapshot(snapshot, accounts.values(), overallHighScore);
+				journal.finishCompaction();
+			}
+		} finally {
+			scoreIndex.rebuild(accounts.values());
+			topScores.rebuild(accounts.values());
 		}
 	}
 
 	/**
-	 * Reads the overall high score from ser file
+	 * Reads the accounts and overall high score from the ser files of older versions
 	 *
+	 * @throws IOException If the files can not be read
 	 */
-	private void readOverallHighScore() {
-		try (ObjectInputStream inFile = new ObjectInputStream(new FileInputStream("overall_high_score.ser"))) {
+	@SuppressWarnings("unchecked")
+	private void readLegacyState() throws IOException {
+		try (ObjectInputStream inFile = new ObjectInputStream(
+				new FileInputStream(directory.resolve(LEGACY_ACCOUNTS_FILE).toFile()))) {
+			for (SnakeAccount account : (List<SnakeAccount>) inFile.readObject()) {
+				if (!account.getUsername().isEmpty() && accounts.putIfAbsent(account.getUsername(), account) == null)
+					account.setOwner(this);
+			}
+		} catch (ClassNotFoundException e) {
+			throw new IOException(LEGACY_ACCOUNTS_FILE + " holds an unknown class", e);
+		}
+
+		try (ObjectInputStream inFile = new ObjectInputStream(
+				new FileInputStream(directory.resolve(LEGACY_HIGH_SCORE_FILE).toFile()))) {
 			overallHighScore = (int) inFile.readObject();
 		} catch (IOException | ClassNotFoundException e) {
 			overallHighScore = 0; // If unable to read, initialize to 0
@@ -127,28 +267,86 @@ public class SnakeAccountCollection implements Serializable {
 	}
 
 	/**
-	 * Writes the overall high score to the ser file
+	 * Adds an account read from the snapshot, the Guest account is kept as it is. The account is
+	 * ranked when readState rebuilds the rankings
 	 *
+	 * @param username  The username of the account
+	 * @param password  The password of the account
+	 * @param highScore The saved high score
 	 */
-	private void writeOverallHighScore() {
-		try (ObjectOutputStream outFile = new ObjectOutputStream(new FileOutputStream("overall_high_score.ser"))) {
-			outFile.writeObject(overallHighScore);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+	void loadAccount(String username, String password, int highScore) {
+		SnakeAccount account = new SnakeAccount(username, password);
+		account.restoreHighScore(highScore);
+		account.setOwner(this);
+		accounts.putIfAbsent(username, account);
+	}
+
+	/**
+	 * Adds an account read from the journal, unless it already exists. The account is ranked when
+	 * readState rebuilds the rankings
+	 *
+	 * @param username The username of the account
+	 * @param password The password of the account
+	 */
+	void applyCreate(String username, String password) {
+		SnakeAccount account = new SnakeAccount(username, password);
+		account.setOwner(this);
+		accounts.putIfAbsent(username, account);
+	}
+
+	/**
+	 * Sets a high score read from the journal, the rankings are rebuilt by readState afterwards
+	 *
+	 * @param username The username of the account
+	 * @param score    The saved high score
+	 */
+	void applyHighScore(String username, int score) {
+		SnakeAccount account = getAccount(username);
+		if (account != null)
+			account.restoreHighScore(score);
+	}
+
+	/**
+	 * Sets the overall high score read from the journal
+	 *
+	 * @param score The saved overall high score
+	 */
+	void applyOverallHighScore(int score) {
+		overallHighScore = score;
+	}
+
+	/**
+	 * Moves an account to its place in the rankings, rebuilding the top scores if the account dropped out
+	 *
+	 * @param account The SnakeAccount that was added or changed
+	 */
+	private void placeOnLeaderboard(SnakeAccount account) {
+		scoreIndex.update(account);
+		if (!topScores.update(account))
+			topScores.rebuild(accounts.values());
 	}
 
 	/**
-	 * Shows alert according to the given message
+	 * Rotates the journal and writes a snapshot of the current state, the snapshot is written to a
+	 * temporary file and moved over the old one so a crash never leaves half a snapshot
 	 *
-	 * @param message A string showing the alert message
+	 * @throws IOException If the journal can not be rotated or the snapshot can not be written
 	 */
-	private void showAlert(String message) {
-		Alert alert = new Alert(Alert.AlertType.WARNING);
-		alert.setTitle("Alert");
-		alert.setHeaderText(null);
-		alert.setContentText(message);
-		alert.showAndWait();
+	private void compact() throws IOException {
+		if (!journal.rotate())
+			return;
+
+		// Copy the accounts now, the game keeps changing them while the snapshot is written
+		List<SnakeAccount> copy = new ArrayList<>(accounts.size());
+		for (SnakeAccount account : accounts.values()) {
+			SnakeAccount saved = new SnakeAccount(account.getUsername(), account.getPassword());
+			saved.restoreHighScore(account.getHighScore());
+			copy.add(saved);
+		}
+		int savedHighScore = overallHighScore;
+		// If this fails the rotated journal is kept and replayed on the next start
+		AccountCodec.writeSnapshot(directory.resolve(SNAPSHOT_FILE), copy, savedHighScore);
+		journal.finishCompaction();
 	}
 
 }
\ No newline at end of file
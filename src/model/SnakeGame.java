@@ -1,30 +1,43 @@
 package model;
 
+import java.io.IOException;
+
 import javafx.scene.input.KeyCode;
 import javafx.animation.AnimationTimer;
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Color;
-import javafx.scene.effect.Glow;
-import javafx.scene.text.Text;
+import view_controller.BoardRenderer;
+import view_controller.DisplayMode;
+import view_controller.GameOverOverlay;
 import view_controller.SnakeGUI;
 
 
 /**
- * Represents the game logic of a game of Snake
+ * Connects a GameEngine to JavaFX: runs it from an AnimationTimer, draws it and handles key presses
  *
  * @author Vannela Chatla and Sameeka Maroli
  */
 
 public class SnakeGame {
-    private Board board;
-    private Snake snake;
-    private ScoreManager scoreManager;
+    private static final int MAX_TICKS_PER_FRAME = 5;
+    private static final long REWIND_NANOS = 10_000_000_000L;
+    private static final long REWIND_STEP_NANOS = 1_000_000_000L;
+    
+    private GameEngine engine;
+    private Replay replay;
+    private ReplayPlayer replayPlayer;
+    private RewindBuffer rewindBuffer;
+    private Ghost ghost;
+    private BestRuns bestRuns;
+    private String player;
+    private BoardRenderer renderer;
+    private DisplayMode displayMode;
     private GraphicsContext gc;
-    private boolean isGameOver;
     private SnakeGUI snakeGUI;
     
     private AnimationTimer gameLoop;
+    private FixedTimestep timestep;
     private long interval;
+    private int numPellets;
     
     /**
      * Create a new SnakeGame object with a given board size
@@ -34,11 +47,26 @@ public class SnakeGame {
      * @param gc     A GraphicsContext used to draw the actors of the game
      */
     public SnakeGame(int width, int height, long interval, int numPellets, GraphicsContext gc, SnakeGUI snakeGUI) {
+        this(width, height, interval, numPellets, new GameRandom().getSeed(), gc, snakeGUI);
+    }
+    
+    /**
+     * Create a new SnakeGame object with a given board size and seed
+     *
+     * @param width  An integer that represents the width of the game board
+     * @param height An integer that represents the height of the game board
+     * @param seed   A long that decides where FoodPellets appear, the same seed and inputs play the same game
+     * @param gc     A GraphicsContext used to draw the actors of the game
+     */
+    public SnakeGame(int width, int height, long interval, int numPellets, long seed, GraphicsContext gc, SnakeGUI snakeGUI) {
         this.gc = gc;
-        this.snake = new Snake(width / 2, height / 2, Color.GREEN);
-        this.board = new Board(width, height, numPellets, Color.BLACK, gc, snake);
-        this.scoreManager = new ScoreManager();
+        this.engine = new GameEngine(width, height, numPellets, seed, interval);
+        this.replay = new Replay(seed, interval, numPellets, width, height);
+        this.rewindBuffer = new RewindBuffer(engine, (int) (REWIND_NANOS / interval));
+        this.displayMode = DisplayMode.CANVAS;
+        this.renderer = displayMode.createRenderer(gc);
         this.interval = interval; // Nanoseconds (100ms)
+        this.numPellets = numPellets;
         this.snakeGUI = snakeGUI;
         
         setupGameLoop();
@@ -48,15 +76,17 @@ public class SnakeGame {
      * Set up the game timer to update the actors and draw the game board
      */
     private void setupGameLoop() {
+        timestep = new FixedTimestep(interval, MAX_TICKS_PER_FRAME);
         gameLoop = new AnimationTimer() {
-            private long lastUpdate = 0;
-            
             @Override
             public void handle(long now) {
-                if (now - lastUpdate >= interval) {
+                // Run every tick that is due, a frame can fall between ticks or cover several
+                int ticks = timestep.advance(now);
+                for (int i = 0; i < ticks && !engine.isGameOver(); i++) {
                     update();
+                }
+                if (ticks > 0) {
                     render();
-                    lastUpdate = now;
                 }
             }
         };
@@ -66,6 +96,7 @@ public class SnakeGame {
      * Start the game loop
      */
     public void start() {
+        timestep.reset();
         gameLoop.start();
     }
     
@@ -80,54 +111,54 @@ public class SnakeGame {
      * Changes the game state to game over
      */
     public boolean gameOver() {
-        isGameOver = true; // Set the game over flag
+        engine.gameOver(); // Set the game over flag
         stop();
+        finishRecording();
         
         return true;
     }
     
     /**
-     * Updates to the current state of the game
+     * Get whether the game has ended
+     *
+     * @return True if the game is over, False otherwise
      */
-    private void update() {
-        if (!isGameOver) {
-            if (board.isCollision()) {
-                gameOver();
-                return;
+    public boolean isGameOver() {
+        return engine.isGameOver();
+    }
+    
+    /**
+     * Updates to the current state of the game, this runs once per tick and does not allocate
+     */
+    public void update() {
+        if (replayPlayer != null) {
+            if (!replayPlayer.step()) {
+                stop();
+            }
+        } else {
+            boolean isRunning = engine.step(null);
+            if (ghost != null) {
+                ghost.step();
+            }
+            if (!isRunning) {
+                stop();
+                finishRecording();
             }
-            checkFoodCollision();
-            snake.move();
         }
     }
     
     /**
-     * Check if the Snake has eaten a FoodPellet and if so, grow the snake and
-     * respawn the FoodPellet
+     * Store how the recorded game ended
      */
-    private void checkFoodCollision() {
-        for (FoodPellet pellet : board.getFoodPellets()) {
-            if (snake.isPoweredUp()) {
-                for (int i = -2; i <= 2; i++) {
-                    for (int j = -2; j <= 2; j++) {
-                        Tile currTile = new Tile(snake.getHead().getX() + i * board.TILE_SIZE,
-                                snake.getHead().getY() + j * board.TILE_SIZE);
-                        if (pellet.detectCollision(currTile)) {
-                            pellet.respawn(board.getWidth(), board.getHeight(), false, snake);
-                            scoreManager.updateScore(1);
-                            snake.grow();
-                        }
-                    }
-                }
-            } else {
-                if (pellet.detectCollision(snake.getHead())) {
-                    if (pellet.isPowerUp()) {
-                        snake.setPoweredUp(true);
-                    }
-                    
-                    pellet.respawn(board.getWidth(), board.getHeight(), !snake.isPoweredUp(), snake);
-                    scoreManager.updateScore(1);
-                    snake.grow();
-                }
+    private void finishRecording() {
+        if (replayPlayer == null && replay.getFinalTick() < 0) {
+            replay.finish(engine);
+            // A finished game is not rewound, so the Ghost is done. Letting go of it frees its file,
+            // which this game replaces if it beat the run
+            setGhost(null);
+            if (bestRuns != null) {
+                // Copied and saved in the background, so game over does not wait for the disk
+                bestRuns.offer(player, replay);
             }
         }
     }
@@ -136,8 +167,8 @@ public class SnakeGame {
      * Draw the entire board
      */
     public void render() { //To Do: Sameeka
-        if (!isGameOver) {
-            board.update();
+        if (!engine.isGameOver()) {
+            renderer.render(engine.getBoard());
             snakeGUI.getGameDisplay().updateScore();
         } else {
             displayGameOverScreen();
@@ -145,47 +176,10 @@ public class SnakeGame {
     }
     
     /**
-     * Displays the game over screen. //To Do: Sameeka
+     * Displays the game over screen. The overlay is only laid out once per board size
      */
     public void displayGameOverScreen() {
-        String gameOverText = "Game Over";
-        String restartText = "Press 'R' to Restart";
-        String goToMainMenu = "Press ESCAPE to return to the main menu";
-        
-        CustomFont gameOverFont = new CustomFont(48);
-        CustomFont restartFont = new CustomFont(24);
-        CustomFont mainMenuFont = new CustomFont(12);
-        
-        gc.setFill(Color.PURPLE);
-        gc.setFont(gameOverFont.getCustomFont());
-        
-        Text text = new Text(gameOverText);
-        text.setFont(gc.getFont());
-        double textWidth = text.getBoundsInLocal().getWidth();
-        double textHeight = text.getBoundsInLocal().getHeight();
-        
-        double x = (board.getWidth() - textWidth) / 2;
-        double y = (board.getHeight() / 2) - (textHeight / 2);
-        
-        gc.setEffect(new Glow(0.8));
-        gc.fillText(gameOverText, x, y);
-        gc.setEffect(null);
-        
-        gc.setFont(restartFont.getCustomFont());
-        text = new Text(restartText);
-        text.setFont(gc.getFont());
-        textWidth = text.getBoundsInLocal().getWidth();
-        y += 60;
-        x = (board.getWidth() - textWidth) / 2;
-        gc.fillText(restartText, x, y);
-        
-        gc.setFont(mainMenuFont.getCustomFont());
-        text = new Text(goToMainMenu);
-        text.setFont(gc.getFont());
-        textWidth = text.getBoundsInLocal().getWidth();
-        y += 40;
-        x = (board.getWidth() - textWidth) / 2;
-        gc.fillText(goToMainMenu, x, y);
+        gc.drawImage(GameOverOverlay.get(engine.getBoard().getWidth(), engine.getBoard().getHeight()), 0, 0);
     }
     
     /**
@@ -195,32 +189,142 @@ public class SnakeGame {
      */
     @SuppressWarnings("incomplete-switch")
     public void handleKeyPress(KeyCode keyCode) {
-        if (isGameOver) {
+        if (engine.isGameOver()) {
             if (keyCode == KeyCode.R) {
                 snakeGUI.startGame();
             } else if (keyCode == KeyCode.ESCAPE) {
                 snakeGUI.setSceneRoot(snakeGUI.getMainMenu());
             }
-        } else {
+        } else if (replayPlayer == null) {
             switch (keyCode) {
                 case UP:
-                    snake.setDirection(Snake.Direction.UP);
+                    steer(Snake.Direction.UP);
                     break;
                 case DOWN:
-                    snake.setDirection(Snake.Direction.DOWN);
+                    steer(Snake.Direction.DOWN);
                     break;
                 case LEFT:
-                    snake.setDirection(Snake.Direction.LEFT);
+                    steer(Snake.Direction.LEFT);
                     break;
                 case RIGHT:
-                    snake.setDirection(Snake.Direction.RIGHT);
+                    steer(Snake.Direction.RIGHT);
+                    break;
+                case BACK_SPACE:
+                    rewind();
                     break;
             }
         }
     }
     
+    /**
+     * Change the direction of the Snake and record the change, it takes effect on the next tick
+     *
+     * @param direction The direction the player asked for
+     */
+    private void steer(Snake.Direction direction) {
+        replay.record(engine.getTick(), direction);
+        engine.getSnake().setDirection(direction);
+    }
+    
+    /**
+     * Step the game back by a second, up to ten seconds in total, the recording forgets what was undone
+     *
+     * Only a game still being played can be rewound. A finished game has already been offered as
+     * a best run, so it stays finished.
+     *
+     * @return An integer representing the number of ticks undone
+     */
+    public int rewind() {
+        if (replayPlayer != null || engine.isGameOver()) {
+            return 0;
+        }
+        int undone = rewindBuffer.rewind((int) Math.max(1, REWIND_STEP_NANOS / interval));
+        if (undone > 0) {
+            replay.truncate(engine.getTick());
+            if (ghost != null) {
+                try {
+                    ghost.seek(engine.getTick());
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    setGhost(null);
+                }
+            }
+        }
+        return undone;
+    }
+    
+    /**
+     * Race a recorded game, drawn as a translucent Snake that moves one tick for every tick of this game
+     *
+     * The Ghost should come from a game with the same seed and settings, see {@link BestRuns#openGhost}.
+     *
+     * @param ghost A Ghost at the tick this game is at, or null to stop showing one
+     */
+    public void setGhost(Ghost ghost) {
+        this.ghost = ghost;
+        renderer.setGhost(ghost);
+    }
+    
+    /**
+     * Save this game when it ends if it is the best run of a player, so it can be raced later
+     *
+     * @param bestRuns The BestRuns the game is offered to
+     * @param username The username of the player
+     */
+    public void setBestRuns(BestRuns bestRuns, String username) {
+        this.bestRuns = bestRuns;
+        this.player = username;
+    }
+    
+    /**
+     * Play a recorded game instead of the current one, key presses are ignored until it ends
+     *
+     * @param recorded The Replay to be played
+     * @param speed    A double representing how many times faster than recorded the game is shown
+     */
+    public void playReplay(Replay recorded, double speed) {
+        playReplay(new ReplayPlayer(recorded), speed);
+    }
+    
+    /**
+     * Play a recorded game from wherever a ReplayPlayer is, for example after {@link ReplayFile#seek(long)}
+     *
+     * @param player The ReplayPlayer to be shown
+     * @param speed  A double representing how many times faster than recorded the game is shown
+     */
+    public void playReplay(ReplayPlayer player, double speed) {
+        stop();
+        replayPlayer = player;
+        engine = player.getEngine();
+        setGhost(null);
+        timestep = new FixedTimestep(Math.max(1, (long) (player.getReplay().getInterval() / speed)), MAX_TICKS_PER_FRAME);
+        start();
+    }
+    
+    /**
+     * Get the recording of the current game, it holds the final score once the game has ended
+     *
+     * @return A Replay of the game played since the last restart
+     */
+    public Replay getReplay() {
+        return replay;
+    }
+    
     public void setGraphicsContext(GraphicsContext gc) {
         this.gc = gc;
+        this.renderer = displayMode.createRenderer(gc);
+        renderer.setGhost(ghost);
+    }
+    
+    /**
+     * Change how the board is drawn, the next frame redraws the whole board
+     *
+     * @param displayMode A DisplayMode chosen in the settings
+     */
+    public void setDisplayMode(DisplayMode displayMode) {
+        this.displayMode = displayMode;
+        this.renderer = displayMode.createRenderer(gc);
+        renderer.setGhost(ghost);
     }
     
     /**
@@ -229,7 +333,7 @@ public class SnakeGame {
      * @return A ScoreManager that contains the current and high scores
      */
     public ScoreManager getScoreManager() {
-        return scoreManager;
+        return engine.getScoreManager();
     }
     
     /**
@@ -238,7 +342,7 @@ public class SnakeGame {
      * @return A Snake object that represents the player
      */
     public Snake getSnake() {
-        return this.snake;
+        return engine.getSnake();
     }
     
     /**
@@ -247,14 +351,46 @@ public class SnakeGame {
      * @return A Board object that represents the NxN tile board of the game
      */
     public Board getBoard() {
-        return this.board;
+        return engine.getBoard();
+    }
+    
+    /**
+     * Get the number of ticks skipped because the game fell too far behind, for example after the window was stalled
+     *
+     * @return A long representing the total number of dropped ticks
+     */
+    public long getDroppedTicks() {
+        return timestep.getDroppedTicks();
+    }
+    
+    /**
+     * Get the seed the current game was started with
+     *
+     * @return A long that plays the same game again when given to a new SnakeGame
+     */
+    public long getSeed() {
+        return engine.getSeed();
+    }
+    
+    /**
+     * Get the headless engine that runs the rules of the game
+     *
+     * @return A GameEngine object holding the state of the game
+     */
+    public GameEngine getEngine() {
+        return engine;
     }
     
     public void restartGame() {
-        snake = new Snake(board.getWidth() / 2, board.getHeight() / 2, Color.GREEN);
-        board = new Board(board.getWidth(), board.getHeight(), 5, Color.BLACK, gc, snake);  // Assuming 5 pellets
-        scoreManager.resetScore();
-        isGameOver = false;
+        int width = engine.getBoard().getWidth();
+        int height = engine.getBoard().getHeight();
+        long seed = new GameRandom().getSeed();
+        engine = new GameEngine(width, height, numPellets, seed, interval);
+        replay = new Replay(seed, interval, numPellets, width, height);
+        rewindBuffer = new RewindBuffer(engine, (int) (REWIND_NANOS / interval));
+        replayPlayer = null;
+        setGhost(null);
+        timestep = new FixedTimestep(interval, MAX_TICKS_PER_FRAME);
         
         // Restart the game loop
         snakeGUI.startGame();
@@ -0,0 +1,100 @@
+package model;
+
+import java.util.ArrayList;
+
+/**
+ * Zobrist hashing of the state of a game of Snake, used to check replays and hunt down desyncs
+ *
+ * Every piece of state gets a 64-bit key: each tile covered by a segment of the Snake, the tile
+ * of the head, each tile holding a FoodPellet, the score and the state of the GameRandom. The
+ * hash of a game is the sum of its keys. A change to the game only adds and subtracts the keys of
+ * what changed, so the Snake and the Board keep their part of the hash up to date in O(1) per tick
+ * instead of hashing the whole board again. Keys are summed instead of XORed because a grown
+ * Snake stacks two segments on its tail, and XOR would cancel them out.
+ *
+ * Keys come from a mixing function instead of a table of random numbers, so any board size works
+ * and there is nothing to allocate. The mixing function gives different keys to different inputs.
+ *
+ * @author Brendan Bamberg
+ */
+
+public class StateHash {
+    private static final long SEGMENT = 1L << 32;
+    private static final long HEAD = 2L << 32;
+    private static final long PELLET = 3L << 32;
+    private static final long SCORE = 4L << 32;
+    private static final long RANDOM = 0x6a09e667f3bcc909L;
+    
+    private StateHash() {
+    }
+    
+    /**
+     * Get the key of a tile covered by a segment of the Snake
+     *
+     * @param cell A packed cell created by {@link Tile#pack(int, int)}
+     * @return A long representing the key
+     */
+    static long segmentKey(int cell) {
+        return GameRandom.mix64(SEGMENT | Integer.toUnsignedLong(cell));
+    }
+    
+    /**
+     * Get the key of the tile the head of the Snake is on
+     *
+     * @param cell A packed cell created by {@link Tile#pack(int, int)}
+     * @return A long representing the key
+     */
+    static long headKey(int cell) {
+        return GameRandom.mix64(HEAD | Integer.toUnsignedLong(cell));
+    }
+    
+    /**
+     * Get the key of a tile holding a FoodPellet
+     *
+     * @param cell A packed cell created by {@link Tile#pack(int, int)}
+     * @return A long representing the key
+     */
+    static long pelletKey(int cell) {
+        return GameRandom.mix64(PELLET | Integer.toUnsignedLong(cell));
+    }
+    
+    /**
+     * Add the keys of the score and the GameRandom to the hashes kept by the Snake and the Board
+     *
+     * @param snakeHash   The hash of the Snake's segments and head
+     * @param pelletHash  The hash of the tiles holding a FoodPellet
+     * @param score       An integer representing the current score
+     * @param randomState A long representing the state of the GameRandom
+     * @return A long representing the hash of the game
+     */
+    static long combine(long snakeHash, long pelletHash, int score, long randomState) {
+        return snakeHash + pelletHash + GameRandom.mix64(SCORE | Integer.toUnsignedLong(score))
+                + GameRandom.mix64(randomState ^ RANDOM);
+    }
+    
+    /**
+     * Hash the state of a game from scratch, which takes time in proportion to the size of the Snake
+     *
+     * Gives the same result as {@link GameEngine#getStateHash()}, which keeps the hash up to date
+     * instead, so it can be used to check the incremental hash.
+     *
+     * @param engine The GameEngine playing the game
+     * @return A long representing the hash of the game
+     */
+    public static long compute(GameEngine engine) {
+        Snake snake = engine.getSnake();
+        long snakeHash = headKey(snake.getHeadCell());
+        for (int i = 0; i < snake.size(); i++) {
+            snakeHash += segmentKey(snake.getCell(i));
+        }
+        long pelletHash = 0;
+        ArrayList<FoodPellet> pellets = engine.getBoard().getFoodPellets();
+        for (FoodPellet pellet : pellets) {
+            if (pellet.getCell() >= 0) {
+                pelletHash += pelletKey(pellet.getCell());
+            }
+        }
+        return combine(snakeHash, pelletHash, engine.getScoreManager().getCurrentScore(),
+                engine.getRandom().getState());
+    }
+}
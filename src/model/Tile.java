@@ -1,15 +1,16 @@
 package model;
 
 /**
- * Represents a tile on the board of a game of Snake
+ * Represents a tile on the board of a game of Snake, Tiles are immutable so a Board
+ * can share one instance per square
  *
  * @author Vannela Chatla
  */
 
 public class Tile {
-    private int x;
-    private int y;
-    private int tileX, tileY;
+    private final int x;
+    private final int y;
+    private final int tileX, tileY;
     private static int TILE_SIZE = 20;
     
     /**
@@ -52,23 +53,34 @@ public class Tile {
     }
     
     /**
-     * Set the x-coordinate to a new square
+     * Pack a pair of tile coordinates into a single int, 16 bits per axis
      *
-     * @param x An integer representing the new x-coordinate
+     * @param tileX The column of the tile
+     * @param tileY The row of the tile
+     * @return An integer holding both coordinates
      */
-    public void setX(int x) {
-        this.x = x;
-        tileX = Math.floorDiv(x, TILE_SIZE);
+    public static int pack(int tileX, int tileY) {
+        return (tileX << 16) | (tileY & 0xFFFF);
     }
     
     /**
-     * Set the y-coordinate to a new square
+     * Get the column out of a packed cell
      *
-     * @param y An integer representing the new y-coordinate
+     * @param cell An integer created by {@link #pack(int, int)}
+     * @return The column of the cell
      */
-    public void setY(int y) {
-        this.y = y;
-        tileY = Math.floorDiv(y, TILE_SIZE);
+    public static int unpackX(int cell) {
+        return cell >> 16;
+    }
+    
+    /**
+     * Get the row out of a packed cell
+     *
+     * @param cell An integer created by {@link #pack(int, int)}
+     * @return The row of the cell
+     */
+    public static int unpackY(int cell) {
+        return (short) cell;
     }
     
     /**
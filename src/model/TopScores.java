@@ -0,0 +1,105 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Keeps the accounts with the highest scores, best first, so the leaderboard never has to sort
+ * every account
+ *
+ * Only the best few accounts are held. A raised score moves an account in or up in O(log K),
+ * where K is the number of places. Accounts with equal scores are ordered by username.
+ *
+ * @author Krish Sachdeva
+ */
+
+class TopScores {
+	private final int places;
+	private final TreeSet<Entry> entries;
+	private final Map<String, Entry> byUsername;
+
+	/**
+	 * Creates an empty leaderboard
+	 *
+	 * @param places The number of accounts kept
+	 */
+	TopScores(int places) {
+		this.places = places;
+		entries = new TreeSet<>();
+		byUsername = new HashMap<>();
+	}
+
+	/**
+	 * Moves an account to its place for its current high score
+	 *
+	 * @param account The SnakeAccount whose high score changed
+	 * @return False if the account fell from its place and the leaderboard must be rebuilt, true otherwise
+	 */
+	synchronized boolean update(SnakeAccount account) {
+		Entry entry = new Entry(account, account.getHighScore());
+		Entry old = byUsername.get(account.getUsername());
+		if (old != null) {
+			// Some account outside the leaderboard may now beat the lowered score
+			if (entry.score < old.score)
+				return false;
+			entries.remove(old);
+		} else if (entries.size() == places) {
+			Entry last = entries.last();
+			if (entry.compareTo(last) > 0)
+				return true;
+			entries.remove(last);
+			byUsername.remove(last.account.getUsername());
+		}
+		entries.add(entry);
+		byUsername.put(account.getUsername(), entry);
+		return true;
+	}
+
+	/**
+	 * Fills the leaderboard again from every account
+	 *
+	 * @param accounts Every SnakeAccount of the collection
+	 */
+	synchronized void rebuild(Collection<SnakeAccount> accounts) {
+		entries.clear();
+		byUsername.clear();
+		for (SnakeAccount account : accounts)
+			update(account);
+	}
+
+	/**
+	 * Gets the accounts of the leaderboard
+	 *
+	 * @return A new list of at most K SnakeAccounts, the highest score first
+	 */
+	synchronized List<SnakeAccount> get() {
+		List<SnakeAccount> top = new ArrayList<>(entries.size());
+		for (Entry entry : entries)
+			top.add(entry.account);
+		return top;
+	}
+
+	/**
+	 * An account with the score it had when it was placed, kept fixed so the TreeSet stays ordered
+	 */
+	private static final class Entry implements Comparable<Entry> {
+		private final SnakeAccount account;
+		private final int score;
+
+		Entry(SnakeAccount account, int score) {
+			this.account = account;
+			this.score = score;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			if (score != other.score)
+				return Integer.compare(other.score, score);
+			return account.getUsername().compareTo(other.account.getUsername());
+		}
+	}
+}
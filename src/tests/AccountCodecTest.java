@@ -0,0 +1,76 @@
+package tests;
+
+import model.AccountCodec;
+import model.SnakeAccount;
+import model.SnakeAccountCollection;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountCodecTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    public void testSnapshotRoundTrip() throws Exception {
+        List<SnakeAccount> accounts = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            SnakeAccount account = new SnakeAccount("player" + i, "pw" + i);
+            account.setHighScore(i * 300);
+            accounts.add(account);
+        }
+        Path file = directory.resolve("accounts.dat");
+        AccountCodec.writeSnapshot(file, accounts, 299700);
+        
+        SnakeAccountCollection loaded = new SnakeAccountCollection(directory);
+        AccountCodec.readSnapshot(file, loaded);
+        assertEquals(1001, loaded.getAccounts().size());
+        assertEquals(299700, loaded.getOverallHighScore());
+        for (int i = 0; i < 1000; i++) {
+            SnakeAccount account = loaded.getAccount("player" + i);
+            assertTrue(account.login("pw" + i));
+            assertEquals(i * 300, account.getHighScore());
+        }
+    }
+    
+    @Test
+    public void testNewerVersionIsRejected() throws Exception {
+        Path file = directory.resolve("accounts.dat");
+        // Magic "SNKA" followed by format version 2
+        Files.write(file, new byte[]{'S', 'N', 'K', 'A', 2, 0, 0});
+        assertThrows(IOException.class, () -> AccountCodec.readSnapshot(file, new SnakeAccountCollection(directory)));
+    }
+    
+    @Test
+    public void testUnknownFieldsAreSkipped() throws Exception {
+        Path file = directory.resolve("accounts.dat");
+        // One account record with two extra bytes a newer version might have added
+        Files.write(file, new byte[]{'S', 'N', 'K', 'A', 1, 5, 1, (byte) 0x88, 0, 1, 'k', 2, 'p', 'w', 5, 7, 7});
+        SnakeAccountCollection loaded = new SnakeAccountCollection(directory);
+        AccountCodec.readSnapshot(file, loaded);
+        assertEquals(5, loaded.getOverallHighScore());
+        assertTrue(loaded.getAccount("k").login("pw"));
+        assertEquals(5, loaded.getAccount("k").getHighScore());
+    }
+    
+    @Test
+    public void testTruncatedSnapshotIsRejected() throws Exception {
+        List<SnakeAccount> accounts = new ArrayList<>();
+        accounts.add(new SnakeAccount("vannela", "pw"));
+        Path file = directory.resolve("accounts.dat");
+        AccountCodec.writeSnapshot(file, accounts, 0);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 2));
+        assertThrows(IOException.class, () -> AccountCodec.readSnapshot(file, new SnakeAccountCollection(directory)));
+    }
+}
@@ -0,0 +1,178 @@
+package tests;
+
+import model.BestRuns;
+import model.GameEngine;
+import model.Ghost;
+import model.Replay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BestRunsTest {
+    
+    private static final long INTERVAL = 75_000_000;
+    
+    @TempDir
+    Path directory;
+    
+    /**
+     * Record a game that runs straight into the wall after eating whatever is in the way
+     */
+    private static Replay recordGame(long seed, int numPellets) {
+        GameEngine engine = new GameEngine(600, 600, numPellets, seed, INTERVAL);
+        Replay replay = new Replay(seed, INTERVAL, numPellets, 600, 600);
+        while (engine.step(null)) {
+            // Run into the wall
+        }
+        replay.finish(engine);
+        return replay;
+    }
+    
+    /**
+     * Record a game with a given final score, by searching seeds
+     */
+    private static Replay recordGameScoring(boolean scores) {
+        for (long seed = 1; ; seed++) {
+            Replay replay = recordGame(seed, 40);
+            if ((replay.getFinalScore() > 0) == scores)
+                return replay;
+        }
+    }
+    
+    /**
+     * Offer a run and wait for it to be saved or turned down
+     */
+    private static void offer(BestRuns bestRuns, String username, Replay replay) throws InterruptedException {
+        bestRuns.offer(username, replay);
+        bestRuns.flush();
+    }
+    
+    /**
+     * Get the final score of the best saved run of a player
+     */
+    private static int bestScore(BestRuns bestRuns, String username) throws IOException {
+        return bestRuns.openGhost(username, 600, 600, 40, INTERVAL).getRecording().getFinalScore();
+    }
+    
+    @Test
+    public void testOnlyBetterRunsAreSaved() throws Exception {
+        BestRuns bestRuns = new BestRuns(directory);
+        Replay worse = recordGameScoring(false);
+        Replay better = recordGameScoring(true);
+        
+        offer(bestRuns, "kayla", worse);
+        assertEquals(worse.getSeed(), bestRuns.openGhost("kayla", 600, 600, 40, INTERVAL).getRecording().getSeed());
+        offer(bestRuns, "kayla", better);
+        offer(bestRuns, "kayla", worse);
+        assertEquals(better.getFinalScore(), bestScore(bestRuns, "kayla"));
+        
+        Ghost ghost = bestRuns.openGhost("kayla", 600, 600, 40, INTERVAL);
+        assertEquals(better.getSeed(), ghost.getRecording().getSeed());
+        
+        // Every player has their own best run
+        offer(bestRuns, "brendan", worse);
+        assertEquals(worse.getFinalScore(), bestScore(bestRuns, "brendan"));
+        assertEquals(better.getFinalScore(), bestScore(bestRuns, "kayla"));
+    }
+    
+    @Test
+    public void testBetterRunReplacesTheRacedRun() throws Exception {
+        BestRuns bestRuns = new BestRuns(directory);
+        Replay worse = recordGameScoring(false);
+        Replay better = recordGameScoring(true);
+        offer(bestRuns, "kayla", worse);
+        
+        // The Ghost of the run being beaten still has its file open while the new run is saved
+        Ghost raced = bestRuns.openGhost("kayla", 600, 600, 40, INTERVAL);
+        offer(bestRuns, "kayla", better);
+        assertEquals(better.getFinalScore(), bestScore(bestRuns, "kayla"));
+        assertFalse(Files.exists(directory.resolve(bestRuns.fileFor("kayla", 600, 600, 40, INTERVAL).getFileName() + ".tmp")));
+        assertEquals(worse.getSeed(), raced.getRecording().getSeed());
+    }
+    
+    @Test
+    public void testUnfinishedRunIsNotSaved() throws Exception {
+        BestRuns bestRuns = new BestRuns(directory);
+        offer(bestRuns, "kayla", new Replay(1, INTERVAL, 3, 600, 600));
+        assertFalse(Files.exists(bestRuns.fileFor("kayla", 600, 600, 3, INTERVAL)));
+    }
+    
+    @Test
+    public void testOfferedRunIsCopied() throws Exception {
+        BestRuns bestRuns = new BestRuns(directory);
+        Replay replay = recordGameScoring(true);
+        long finalTick = replay.getFinalTick();
+        bestRuns.offer("kayla", replay);
+        // Rewinding the game right after game over must not change the run being saved
+        replay.truncate(0);
+        bestRuns.flush();
+        
+        Replay saved = bestRuns.openGhost("kayla", 600, 600, 40, INTERVAL).getRecording();
+        assertEquals(finalTick, saved.getFinalTick());
+    }
+    
+    @Test
+    public void testFailedSaveIsReported() throws Exception {
+        Path file = directory.resolve("file");
+        Files.createFile(file);
+        BestRuns bestRuns = new BestRuns(file);
+        Throwable[] reported = new Throwable[1];
+        Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> reported[0] = e);
+        try {
+            offer(bestRuns, "kayla", recordGame(1, 3));
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+        assertTrue(reported[0] instanceof IOException, String.valueOf(reported[0]));
+    }
+    
+    @Test
+    public void testClosedBestRunsFinishesSaving() throws Exception {
+        BestRuns bestRuns = new BestRuns(directory);
+        bestRuns.offer("kayla", recordGame(1, 3));
+        bestRuns.close();
+        bestRuns.offer("brendan", recordGame(1, 3));
+        bestRuns.flush();
+        assertTrue(Files.exists(bestRuns.fileFor("kayla", 600, 600, 3, INTERVAL)));
+        assertFalse(Files.exists(bestRuns.fileFor("brendan", 600, 600, 3, INTERVAL)));
+    }
+    
+    @Test
+    public void testNoGhostWithoutBestRun() throws Exception {
+        BestRuns bestRuns = new BestRuns(directory);
+        assertNull(bestRuns.openGhost("kayla", 600, 600, 3, INTERVAL));
+        
+        offer(bestRuns, "kayla", recordGame(1, 3));
+        assertNotNull(bestRuns.openGhost("kayla", 600, 600, 3, INTERVAL));
+        assertNull(bestRuns.openGhost("kayla", 600, 600, 4, INTERVAL));
+        assertNull(bestRuns.openGhost("kayla", 600, 600, 3, INTERVAL * 2));
+    }
+    
+    @Test
+    public void testRunWithOtherSettingsIsRejected() throws IOException {
+        BestRuns bestRuns = new BestRuns(directory);
+        Files.createDirectories(directory);
+        recordGame(1, 5).write(bestRuns.fileFor("kayla", 600, 600, 3, INTERVAL));
+        assertThrows(IOException.class, () -> bestRuns.openGhost("kayla", 600, 600, 3, INTERVAL));
+    }
+    
+    @Test
+    public void testAnyUsernameMakesAFileName() throws Exception {
+        BestRuns bestRuns = new BestRuns(directory);
+        String[] usernames = {"../../etc/passwd", "a/b\\c:d", "\u540d\u524d", "with space", "."};
+        for (String username : usernames) {
+            Path file = bestRuns.fileFor(username, 600, 600, 3, INTERVAL);
+            assertEquals(directory, file.getParent(), username);
+            offer(bestRuns, username, recordGame(2, 3));
+            assertTrue(Files.exists(file), username);
+        }
+        assertEquals(usernames.length, Files.list(directory).count());
+    }
+}
@@ -0,0 +1,136 @@
+package tests;
+
+import model.Board;
+import model.FoodPellet;
+import model.Snake;
+import model.Snake.Direction;
+import model.Tile;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardTest {
+    
+    private Snake snake;
+    private Board board;
+    
+    @BeforeEach
+    public void setUp() {
+        snake = new Snake(300, 300);
+        board = new Board(600, 600, 1, snake);
+    }
+    
+    @Test
+    public void testWallsAreNotFree() {
+        assertFalse(board.isCellFree(0, 10));
+        assertFalse(board.isCellFree(29, 10));
+        assertFalse(board.isCellFree(10, 0));
+        assertFalse(board.isCellFree(10, 29));
+        assertTrue(board.isCellFree(1, 1));
+    }
+    
+    @Test
+    public void testOccupancyFollowsSnake() {
+        assertFalse(board.isCellFree(15, 15));
+        snake.grow();
+        snake.move();
+        assertFalse(board.isCellFree(16, 15));
+        assertFalse(board.isCellFree(15, 15), "The grown tail should still cover the old tile.");
+        snake.move();
+        assertTrue(board.isCellFree(15, 15));
+        assertFalse(board.isCollision());
+    }
+    
+    @Test
+    public void testWallCollision() {
+        for (int i = 0; i < 13; i++) {
+            snake.move();
+            assertFalse(board.isCollision());
+        }
+        snake.move();
+        assertTrue(board.isCollision(), "Snake should collide with the right wall.");
+    }
+    
+    @Test
+    public void testSelfCollision() {
+        for (int i = 0; i < 4; i++) {
+            snake.grow();
+        }
+        snake.move();
+        snake.setDirection(Direction.UP);
+        snake.move();
+        snake.setDirection(Direction.LEFT);
+        snake.move();
+        assertFalse(board.isCollision());
+        snake.setDirection(Direction.DOWN);
+        snake.move();
+        assertTrue(board.isCollision(), "Snake should collide with its own tail.");
+    }
+    
+    @Test
+    public void testRespawnReportsFullBoard() {
+        // A 5x5 board has 9 tiles inside the walls, the Snake takes one and 8 pellets take the rest
+        Snake small = new Snake(50, 50);
+        Board full = new Board(100, 100, 8, small);
+        
+        assertTrue(full.isFull());
+        assertEquals(-1, full.randomFreeCell());
+        FoodPellet pellet = full.getFoodPellets().get(0);
+        assertFalse(pellet.respawn(true), "Respawn should fail when no tile is free.");
+        assertFalse(full.isFull(), "The pellet's old tile should be free again.");
+        assertTrue(pellet.respawn(true));
+        assertTrue(full.isFull());
+    }
+    
+    @Test
+    public void testPelletIndex() {
+        FoodPellet pellet = board.getFoodPellets().get(0);
+        Tile tile = pellet.getCurrentTile();
+        int cell = Tile.pack(tile.getTileX(), tile.getTileY());
+        assertSame(pellet, board.getPelletAt(cell));
+        
+        pellet.respawn(false);
+        assertNull(board.getPelletAt(cell));
+        tile = pellet.getCurrentTile();
+        assertSame(pellet, board.getPelletAt(Tile.pack(tile.getTileX(), tile.getTileY())));
+        assertNull(board.getPelletAt(Tile.pack(-1, 5)));
+    }
+    
+    @Test
+    public void testMoveDirtiesOnlyChangedTiles() {
+        for (int i = 0; i < 10; i++) {
+            snake.grow();
+            snake.move();
+        }
+        assertTrue(board.isFullRedraw(), "A new board should be drawn in full.");
+        board.clearDirty();
+        
+        // A long Snake changes only the tile it moves into and the tile its tail leaves
+        snake.move();
+        assertFalse(board.isFullRedraw());
+        assertEquals(2, board.getDirtyCount());
+        int first = board.getDirtyCell(0);
+        int second = board.getDirtyCell(1);
+        assertTrue(first == snake.getHeadCell() || second == snake.getHeadCell());
+        
+        board.clearDirty();
+        assertEquals(0, board.getDirtyCount());
+        FoodPellet pellet = board.getFoodPellets().get(0);
+        pellet.respawn(false);
+        assertEquals(2, board.getDirtyCount(), "A respawn changes the old and the new tile.");
+    }
+    
+    @Test
+    public void testTooManyDirtyTilesRedrawsEverything() {
+        board.clearDirty();
+        for (int x = 0; x < board.getColumns(); x++) {
+            for (int y = 0; y < board.getRows(); y++) {
+                board.markDirty(Tile.pack(x, y));
+            }
+        }
+        assertTrue(board.isFullRedraw());
+        assertEquals(0, board.getDirtyCount());
+    }
+}
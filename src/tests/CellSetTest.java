@@ -0,0 +1,50 @@
+package tests;
+
+import model.CellSet;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CellSetTest {
+    
+    @Test
+    public void testAddAndRemove() {
+        CellSet set = new CellSet(10);
+        set.add(3);
+        set.add(7);
+        set.add(3);
+        assertEquals(2, set.size());
+        assertTrue(set.contains(3));
+        
+        set.remove(3);
+        assertFalse(set.contains(3));
+        assertTrue(set.contains(7));
+        assertEquals(1, set.size());
+        assertEquals(7, set.get(0));
+    }
+    
+    @Test
+    public void testRemoveMissingTile() {
+        CellSet set = new CellSet(4);
+        set.add(1);
+        set.remove(2);
+        assertEquals(1, set.size());
+    }
+    
+    @Test
+    public void testRestoreUndoesRemove() {
+        CellSet set = new CellSet(10);
+        for (int i = 0; i < 5; i++)
+            set.add(i);
+        for (int removed = 0; removed < 5; removed++) {
+            int position = set.positionOf(removed);
+            set.remove(removed);
+            set.restore(removed, position);
+            assertEquals(5, set.size());
+            for (int i = 0; i < 5; i++)
+                assertEquals(i, set.get(i), "Order after restoring " + removed);
+        }
+        assertEquals(-1, set.positionOf(9));
+    }
+}
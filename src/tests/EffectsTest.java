@@ -0,0 +1,40 @@
+package tests;
+
+import model.Effects;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EffectsTest {
+    
+    @Test
+    public void testEffectRunsForItsTicks() {
+        Effects effects = new Effects();
+        assertFalse(effects.isActive(Effects.Type.POWER_UP));
+        
+        effects.start(Effects.Type.POWER_UP, 3);
+        for (int i = 0; i < 2; i++) {
+            effects.tick();
+            assertTrue(effects.isActive(Effects.Type.POWER_UP));
+        }
+        effects.tick();
+        assertFalse(effects.isActive(Effects.Type.POWER_UP));
+        effects.tick();
+        assertEquals(0, effects.getRemaining(Effects.Type.POWER_UP));
+    }
+    
+    @Test
+    public void testRestartKeepsLongerDuration() {
+        Effects effects = new Effects();
+        effects.start(Effects.Type.POWER_UP, 10);
+        effects.tick();
+        effects.start(Effects.Type.POWER_UP, 10);
+        assertEquals(10, effects.getRemaining(Effects.Type.POWER_UP), "A second power up should restart the timer.");
+        effects.start(Effects.Type.POWER_UP, 4);
+        assertEquals(10, effects.getRemaining(Effects.Type.POWER_UP));
+        
+        effects.stop(Effects.Type.POWER_UP);
+        assertFalse(effects.isActive(Effects.Type.POWER_UP));
+    }
+}
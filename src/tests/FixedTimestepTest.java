@@ -0,0 +1,60 @@
+package tests;
+
+import model.FixedTimestep;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FixedTimestepTest {
+    
+    private static final long FRAME = 16_666_667; // 60 Hz
+    
+    @Test
+    public void testFirstFrameRunsNoTicks() {
+        FixedTimestep timestep = new FixedTimestep(75_000_000, 5);
+        assertEquals(0, timestep.advance(1_000_000_000));
+        assertEquals(1, timestep.advance(1_075_000_000));
+    }
+    
+    @Test
+    public void testTickRateMatchesInterval() {
+        // 75ms is not a multiple of the frame time, the old loop ran a tick every 83ms instead
+        long interval = 75_000_000;
+        FixedTimestep timestep = new FixedTimestep(interval, 5);
+        long now = 0;
+        long ticks = 0;
+        timestep.advance(now);
+        for (int frame = 0; frame < 100_000; frame++) {
+            now += FRAME;
+            ticks += timestep.advance(now);
+        }
+        
+        assertEquals(now / interval, ticks);
+        assertTrue(Math.abs((double) now / ticks - interval) < 1_000, "A tick should average 75ms within a microsecond.");
+        assertEquals(0, timestep.getDroppedTicks());
+    }
+    
+    @Test
+    public void testCatchUpIsCapped() {
+        FixedTimestep timestep = new FixedTimestep(10_000_000, 5);
+        timestep.advance(0);
+        
+        // A one second stall would be 100 ticks, only 5 are run and the rest dropped
+        assertEquals(5, timestep.advance(1_000_000_000));
+        assertEquals(95, timestep.getDroppedTicks());
+        assertEquals(1, timestep.advance(1_010_000_000));
+    }
+    
+    @Test
+    public void testResetForgetsPause() {
+        FixedTimestep timestep = new FixedTimestep(10_000_000, 5);
+        timestep.advance(0);
+        timestep.advance(5_000_000);
+        timestep.reset();
+        
+        assertEquals(0, timestep.advance(60_000_000_000L));
+        assertEquals(0, timestep.advance(60_005_000_000L));
+        assertEquals(0, timestep.getDroppedTicks());
+    }
+}
@@ -0,0 +1,87 @@
+package tests;
+
+import model.Effects;
+import model.FoodPellet;
+import model.GameEngine;
+import model.Snake.Direction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameEngineTest {
+    
+    private GameEngine engine;
+    
+    @BeforeEach
+    public void setUp() {
+        engine = new GameEngine(600, 600, 1);
+    }
+    
+    @Test
+    public void testEngineInitialization() {
+        assertNotNull(engine.getBoard());
+        assertNotNull(engine.getSnake());
+        assertEquals(0, engine.getScoreManager().getCurrentScore());
+        assertEquals(0, engine.getTick());
+        assertFalse(engine.isGameOver());
+    }
+    
+    @Test
+    public void testStepMovesSnake() {
+        assertTrue(engine.step(null));
+        assertEquals(16, engine.getSnake().getHead().getTileX());
+        assertTrue(engine.step(Direction.UP));
+        assertEquals(Direction.UP, engine.getSnake().getDirection());
+        assertEquals(14, engine.getSnake().getHead().getTileY());
+        assertEquals(2, engine.getTick());
+    }
+    
+    @Test
+    public void testStepEndsGameAtWall() {
+        int ticks = 0;
+        while (engine.step(null)) {
+            ticks++;
+        }
+        assertTrue(engine.isGameOver());
+        assertEquals(14, ticks, "The Snake should reach the right wall after 14 moves.");
+        assertFalse(engine.step(Direction.UP), "A finished game should not step.");
+    }
+    
+    @Test
+    public void testSameSeedPlaysSameGame() {
+        GameEngine first = new GameEngine(600, 600, 5, 2024);
+        GameEngine second = new GameEngine(600, 600, 5, 2024);
+        Direction[] inputs = {Direction.UP, null, Direction.LEFT, null, Direction.DOWN, Direction.RIGHT};
+        
+        for (int i = 0; i < 60; i++) {
+            Direction input = inputs[i % inputs.length];
+            assertEquals(first.step(input), second.step(input));
+            assertEquals(first.getSnake().getHeadCell(), second.getSnake().getHeadCell());
+            for (int p = 0; p < 5; p++) {
+                FoodPellet a = first.getBoard().getFoodPellets().get(p);
+                FoodPellet b = second.getBoard().getFoodPellets().get(p);
+                assertEquals(a.getCurrentTile(), b.getCurrentTile());
+                assertEquals(a.isPowerUp(), b.isPowerUp());
+                assertEquals(a.getColorIndex(), b.getColorIndex());
+            }
+        }
+        assertEquals(2024, first.getSeed());
+    }
+    
+    @Test
+    public void testPowerUpOnlyCountsDownWhileStepping() {
+        GameEngine game = new GameEngine(600, 600, 1, 1, 50_000_000);
+        game.getEffects().start(Effects.Type.POWER_UP, 3);
+        assertTrue(game.isPoweredUp());
+        
+        game.step(Direction.UP);
+        assertTrue(game.getSnake().isPoweredUp());
+        game.step(null);
+        assertTrue(game.getSnake().isPoweredUp());
+        game.step(null);
+        assertFalse(game.isPoweredUp());
+        assertFalse(game.getSnake().isPoweredUp());
+    }
+}
@@ -0,0 +1,46 @@
+package tests;
+
+import model.GameRandom;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameRandomTest {
+    
+    @Test
+    public void testSameSeedSameNumbers() {
+        GameRandom first = new GameRandom(42);
+        GameRandom second = new GameRandom(42);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(first.nextInt(1000), second.nextInt(1000));
+        }
+        assertEquals(42, first.getSeed());
+    }
+    
+    @Test
+    public void testNextIntStaysInBounds() {
+        GameRandom random = new GameRandom(7);
+        boolean[] seen = new boolean[7];
+        for (int i = 0; i < 10_000; i++) {
+            int value = random.nextInt(7);
+            assertTrue(value >= 0 && value < 7);
+            seen[value] = true;
+        }
+        for (boolean value : seen) {
+            assertTrue(value, "Every value below the bound should come up.");
+        }
+        assertThrows(IllegalArgumentException.class, () -> random.nextInt(0));
+    }
+    
+    @Test
+    public void testRestoringStateRepeatsNumbers() {
+        GameRandom random = new GameRandom(123);
+        random.nextInt();
+        long state = random.getState();
+        int expected = random.nextInt(100);
+        
+        random.setState(state);
+        assertEquals(expected, random.nextInt(100));
+    }
+}
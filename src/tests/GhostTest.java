@@ -0,0 +1,192 @@
+package tests;
+
+import model.GameEngine;
+import model.GameRandom;
+import model.Ghost;
+import model.Replay;
+import model.ReplayFile;
+import model.ReplayPlayer;
+import model.Snake;
+import model.Snake.Direction;
+import model.Tile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GhostTest {
+    
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final Direction[] SQUARE = {Direction.DOWN, Direction.LEFT, Direction.UP, Direction.RIGHT};
+    private static final long INTERVAL = 75_000_000;
+    
+    @TempDir
+    Path directory;
+    
+    /**
+     * Record a game with a player that chases the first FoodPellet and sometimes turns at random
+     */
+    private static Replay recordGame(long seed, int maxTicks) {
+        GameEngine engine = new GameEngine(600, 600, 3, seed, INTERVAL);
+        Replay replay = new Replay(seed, INTERVAL, 3, 600, 600);
+        GameRandom player = new GameRandom(seed);
+        while (!engine.isGameOver() && engine.getTick() < maxTicks) {
+            Snake snake = engine.getSnake();
+            Tile head = snake.getHead();
+            Tile food = engine.getBoard().getFoodPellets().get(0).getCurrentTile();
+            Direction wanted;
+            if (player.nextInt(8) == 0) {
+                wanted = Direction.values()[player.nextInt(4)];
+            } else if (food.getTileX() != head.getTileX()) {
+                wanted = food.getTileX() < head.getTileX() ? Direction.LEFT : Direction.RIGHT;
+            } else {
+                wanted = food.getTileY() < head.getTileY() ? Direction.UP : Direction.DOWN;
+            }
+            if (wanted != snake.getDirection()) {
+                replay.record(engine.getTick(), wanted);
+                snake.setDirection(wanted);
+            }
+            engine.step(null);
+        }
+        replay.finish(engine);
+        return replay;
+    }
+    
+    /**
+     * Record a game with no FoodPellets where the Snake circles a square, turning every 8 ticks
+     */
+    private static Replay recordCircling(int ticks) {
+        GameEngine engine = new GameEngine(800, 600, 0, 3, INTERVAL);
+        Replay replay = new Replay(3, INTERVAL, 0, 800, 600);
+        for (int i = 0; i < ticks; i++) {
+            if (i % 8 == 0) {
+                replay.record(i, SQUARE[(i / 8) % 4]);
+                engine.getSnake().setDirection(SQUARE[(i / 8) % 4]);
+            }
+            engine.step(null);
+        }
+        assertFalse(engine.isGameOver());
+        replay.finish(engine);
+        return replay;
+    }
+    
+    /**
+     * Play a Replay from the start and get the state hash after every tick
+     */
+    private static long[] stateHashes(Replay replay) {
+        ReplayPlayer player = new ReplayPlayer(replay);
+        long[] hashes = new long[(int) replay.getFinalTick() + 1];
+        hashes[0] = player.getEngine().getStateHash();
+        while (!player.isFinished()) {
+            player.step();
+            hashes[(int) player.getEngine().getTick()] = player.getEngine().getStateHash();
+        }
+        return hashes;
+    }
+    
+    private Ghost openGhost(Replay replay) throws IOException {
+        Path file = directory.resolve("best.replay");
+        replay.write(file);
+        return new Ghost(new ReplayFile(file));
+    }
+    
+    @Test
+    public void testGhostPlaysRecordedGame() throws IOException {
+        for (long seed = 1; seed <= 5; seed++) {
+            Replay replay = recordGame(seed, 3000);
+            long[] hashes = stateHashes(replay);
+            Ghost ghost = openGhost(replay);
+            
+            assertEquals(hashes[0], ghost.getEngine().getStateHash());
+            while (ghost.step()) {
+                long tick = ghost.getEngine().getTick();
+                assertEquals(hashes[(int) tick], ghost.getEngine().getStateHash(), "Seed " + seed + " at tick " + tick);
+            }
+            assertTrue(ghost.isFinished());
+            assertEquals(replay.getFinalTick(), ghost.getEngine().getTick());
+            assertEquals(replay.getFinalScore(), ghost.getEngine().getScoreManager().getCurrentScore());
+            assertFalse(ghost.step());
+        }
+    }
+    
+    @Test
+    public void testSeekBackAndForth() throws IOException {
+        // Long enough for a few Keyframes, with inputs on both sides of each
+        Replay replay = recordCircling(5 * Replay.KEYFRAME_INTERVAL + 100);
+        long[] hashes = stateHashes(replay);
+        Ghost ghost = openGhost(replay);
+        
+        long[] ticks = {3000, 1100, 0, replay.getFinalTick() - 1, Replay.KEYFRAME_INTERVAL + 1, Replay.KEYFRAME_INTERVAL - 1};
+        for (long tick : ticks) {
+            ghost.seek(tick);
+            assertEquals(tick, ghost.getEngine().getTick());
+            assertEquals(hashes[(int) tick], ghost.getEngine().getStateHash(), "Hash after seeking to " + tick);
+            
+            // The inputs after the seek have to be the ones of the recording too
+            for (int i = 0; i < 50 && ghost.step(); i++) {
+                assertEquals(hashes[(int) ghost.getEngine().getTick()], ghost.getEngine().getStateHash());
+            }
+        }
+        
+        ghost.seek(replay.getFinalTick() + 100);
+        assertTrue(ghost.isFinished());
+        assertEquals(replay.getFinalTick(), ghost.getEngine().getTick());
+    }
+    
+    @Test
+    public void testSeekInFileWithShortIndex() throws IOException {
+        Replay replay = recordCircling(3 * Replay.KEYFRAME_INTERVAL + 100);
+        long[] hashes = stateHashes(replay);
+        
+        // Drop the input positions from every index entry, like a file written by version 2
+        ByteBuffer bytes = ByteBuffer.wrap(replay.toBytes());
+        int limit = bytes.limit();
+        int indexOffset = (int) bytes.getLong(limit - 20);
+        int count = bytes.getInt(limit - 12);
+        ByteBuffer old = ByteBuffer.allocate(indexOffset + count * 16 + 20);
+        old.put(Arrays.copyOf(bytes.array(), indexOffset));
+        for (int i = 0; i < count; i++) {
+            old.putLong(bytes.getLong(indexOffset + i * 32));
+            old.putLong(bytes.getLong(indexOffset + i * 32 + 8));
+        }
+        old.put(Arrays.copyOfRange(bytes.array(), limit - 20, limit));
+        Path file = directory.resolve("old.replay");
+        Files.write(file, old.array());
+        
+        Ghost ghost = new Ghost(new ReplayFile(file));
+        for (long tick : new long[]{2 * Replay.KEYFRAME_INTERVAL + 5, 10, Replay.KEYFRAME_INTERVAL}) {
+            ghost.seek(tick);
+            for (int i = 0; i < 50 && ghost.step(); i++) {
+                assertEquals(hashes[(int) ghost.getEngine().getTick()], ghost.getEngine().getStateHash());
+            }
+        }
+    }
+    
+    @Test
+    public void testGhostStepDoesNotAllocate() throws IOException {
+        int ticks = 48_000;
+        Ghost ghost = openGhost(recordCircling(ticks));
+        
+        // The first laps create every Tile on the path and give the JIT time to settle
+        long allocated = 0;
+        for (int round = 0; round < 5; round++) {
+            long before = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+            for (int i = 0; i < ticks / 6; i++) {
+                ghost.step();
+            }
+            allocated = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+        }
+        
+        assertFalse(ghost.isFinished());
+        assertEquals(0, allocated, "A tick of the Ghost should not allocate once it is warmed up.");
+    }
+}
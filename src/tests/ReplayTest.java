@@ -0,0 +1,240 @@
+package tests;
+
+import model.Effects;
+import model.FoodPellet;
+import model.GameEngine;
+import model.GameRandom;
+import model.Replay;
+import model.ReplayFile;
+import model.ReplayPlayer;
+import model.Snake;
+import model.Snake.Direction;
+import model.Tile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplayTest {
+    
+    private static final long INTERVAL = 75_000_000;
+    
+    @TempDir
+    Path directory;
+    
+    /**
+     * Play a game with a player that chases the first FoodPellet and sometimes turns at random,
+     * recording every direction change the way SnakeGame does
+     */
+    private static Replay recordGame(GameEngine engine, Replay replay, long seed, int maxTicks) {
+        GameRandom player = new GameRandom(seed);
+        while (!engine.isGameOver() && engine.getTick() < maxTicks) {
+            Snake snake = engine.getSnake();
+            Tile head = snake.getHead();
+            Tile food = engine.getBoard().getFoodPellets().get(0).getCurrentTile();
+            Direction wanted;
+            if (player.nextInt(8) == 0) {
+                wanted = Direction.values()[player.nextInt(4)];
+            } else if (food.getTileX() != head.getTileX()) {
+                wanted = food.getTileX() < head.getTileX() ? Direction.LEFT : Direction.RIGHT;
+            } else {
+                wanted = food.getTileY() < head.getTileY() ? Direction.UP : Direction.DOWN;
+            }
+            if (wanted != snake.getDirection()) {
+                replay.record(engine.getTick(), wanted);
+                snake.setDirection(wanted);
+            }
+            engine.step(null);
+        }
+        replay.finish(engine);
+        return replay;
+    }
+    
+    @Test
+    public void testReplayReproducesGame() throws IOException {
+        for (long seed = 1; seed <= 20; seed++) {
+            GameEngine engine = new GameEngine(600, 600, 3, seed, INTERVAL);
+            Replay replay = recordGame(engine, new Replay(seed, INTERVAL, 3, 600, 600), seed, 5000);
+            
+            Replay loaded = Replay.fromBytes(ByteBuffer.wrap(replay.toBytes()));
+            ReplayPlayer playback = new ReplayPlayer(loaded);
+            GameEngine replayed = playback.playToEnd();
+            assertTrue(playback.matchesRecording(), "Seed " + seed + " should replay to the recorded result.");
+            assertEquals(engine.getTick(), replayed.getTick());
+            assertEquals(engine.getScoreManager().getCurrentScore(), replayed.getScoreManager().getCurrentScore());
+            assertEquals(engine.getSnake().getBody(), replayed.getSnake().getBody());
+            assertEquals(engine.getRandom().getState(), replayed.getRandom().getState());
+        }
+    }
+    
+    @Test
+    public void testRecordedGameScores() {
+        int best = 0;
+        for (long seed = 1; seed <= 20; seed++) {
+            GameEngine engine = new GameEngine(600, 600, 3, seed, INTERVAL);
+            best = Math.max(best, recordGame(engine, new Replay(seed, INTERVAL, 3, 600, 600), seed, 5000).getFinalScore());
+        }
+        assertTrue(best > 0, "The test player should eat at least one pellet, or the replay test proves little.");
+    }
+    
+    @Test
+    public void testInputsTakeAboutOneByte() {
+        Replay replay = new Replay(7, INTERVAL, 1, 600, 600);
+        Direction[] turns = {Direction.UP, Direction.LEFT, Direction.DOWN, Direction.RIGHT};
+        // Kept under one keyframe interval so the file holds only the inputs
+        for (int i = 0; i < 1000; i++)
+            replay.record(i, turns[i % 4]);
+        int headerSize = new Replay(7, INTERVAL, 1, 600, 600).toBytes().length;
+        assertTrue(replay.toBytes().length - headerSize <= 1002, "Inputs close together should take one byte each.");
+    }
+    
+    @Test
+    public void testFileRoundTrip() throws IOException {
+        Replay replay = new Replay(-3, INTERVAL, 2, 400, 600);
+        replay.record(0, Direction.UP);
+        replay.record(0, Direction.LEFT);
+        replay.record(1_000_000_000L, Direction.DOWN);
+        Path file = directory.resolve("game.replay");
+        replay.write(file);
+        
+        Replay loaded = Replay.read(file);
+        assertEquals(-3, loaded.getSeed());
+        assertEquals(INTERVAL, loaded.getInterval());
+        assertEquals(3, loaded.getInputCount());
+        assertEquals(0, loaded.getInputTick(1));
+        assertEquals(Direction.LEFT, loaded.getInputDirection(1));
+        assertEquals(1_000_000_000L, loaded.getInputTick(2));
+        assertEquals(-1, loaded.getFinalTick());
+    }
+    
+    @Test
+    public void testTruncatedReplayIsRejected() {
+        Replay replay = new Replay(5, INTERVAL, 1, 600, 600);
+        replay.record(3, Direction.UP);
+        byte[] bytes = replay.toBytes();
+        // Cut inside the seed
+        assertThrows(IOException.class, () -> Replay.fromBytes(ByteBuffer.wrap(Arrays.copyOf(bytes, 10))));
+    }
+    
+    /**
+     * Get the direction that keeps the head on a cycle through every tile inside the walls of a
+     * square board, so the Snake only dies once the board is full
+     */
+    private static Direction cycleDirection(Tile head, int interior) {
+        // Rows are counted from the bottom so the row the Snake starts on runs right, like the Snake
+        int i = head.getTileX() - 1;
+        int j = interior - head.getTileY();
+        if (i == 0)
+            return j == 0 ? Direction.RIGHT : Direction.DOWN;
+        if (j % 2 == 0)
+            return i < interior - 1 ? Direction.RIGHT : Direction.UP;
+        if (i > 1)
+            return Direction.LEFT;
+        return j == interior - 1 ? Direction.LEFT : Direction.UP;
+    }
+    
+    private static Replay recordLongGame(long seed) {
+        GameEngine engine = new GameEngine(400, 400, 1, seed, INTERVAL);
+        Replay replay = new Replay(seed, INTERVAL, 1, 400, 400);
+        while (!engine.isGameOver()) {
+            Snake snake = engine.getSnake();
+            Direction wanted = cycleDirection(snake.getHead(), 18);
+            if (wanted != snake.getDirection()) {
+                replay.record(engine.getTick(), wanted);
+                snake.setDirection(wanted);
+            }
+            engine.step(null);
+        }
+        replay.finish(engine);
+        return replay;
+    }
+    
+    private static void assertSameState(GameEngine expected, GameEngine actual) {
+        assertEquals(expected.getTick(), actual.getTick());
+        assertEquals(expected.getSnake().getBody(), actual.getSnake().getBody(), "Snake at tick " + expected.getTick());
+        assertEquals(expected.getSnake().getDirection(), actual.getSnake().getDirection());
+        assertEquals(expected.getRandom().getState(), actual.getRandom().getState());
+        assertEquals(expected.getScoreManager().getCurrentScore(), actual.getScoreManager().getCurrentScore());
+        assertEquals(expected.getEffects().getRemaining(Effects.Type.POWER_UP), actual.getEffects().getRemaining(Effects.Type.POWER_UP));
+        assertEquals(expected.isGameOver(), actual.isGameOver());
+        for (int k = 0; k < expected.getBoard().getFoodPellets().size(); k++) {
+            FoodPellet pellet = expected.getBoard().getFoodPellets().get(k);
+            FoodPellet other = actual.getBoard().getFoodPellets().get(k);
+            assertEquals(pellet.getCurrentTile(), other.getCurrentTile());
+            assertEquals(pellet.isPowerUp(), other.isPowerUp());
+            assertEquals(pellet.getColorIndex(), other.getColorIndex());
+            if (pellet.getCurrentTile() != null) {
+                int cell = Tile.pack(pellet.getCurrentTile().getTileX(), pellet.getCurrentTile().getTileY());
+                assertSame(other, actual.getBoard().getPelletAt(cell));
+            }
+        }
+    }
+    
+    @Test
+    public void testSeekMatchesPlayingFromStart() throws IOException {
+        Replay replay = recordLongGame(3);
+        assertTrue(replay.getFinalTick() > 10 * Replay.KEYFRAME_INTERVAL, "The game should be long enough to need keyframes.");
+        Path file = directory.resolve("long.replay");
+        replay.write(file);
+        
+        ReplayFile replayFile = new ReplayFile(file);
+        assertEquals(replay.getFinalTick() / Replay.KEYFRAME_INTERVAL, replayFile.getKeyframeCount());
+        
+        GameRandom random = new GameRandom(5);
+        long[] targets = new long[40];
+        for (int i = 0; i < targets.length; i++)
+            targets[i] = random.nextInt((int) replay.getFinalTick() + 1);
+        targets[0] = 0;
+        targets[1] = Replay.KEYFRAME_INTERVAL;
+        targets[2] = Replay.KEYFRAME_INTERVAL - 1;
+        targets[3] = replay.getFinalTick();
+        Arrays.sort(targets);
+        
+        ReplayPlayer fromStart = new ReplayPlayer(replay);
+        for (long target : targets) {
+            while (fromStart.getEngine().getTick() < target && fromStart.step()) {
+                // Play up to the target
+            }
+            assertSameState(fromStart.getEngine(), replayFile.seek(target).getEngine());
+        }
+    }
+    
+    @Test
+    public void testSeekThenPlayToEnd() throws IOException {
+        Replay replay = recordLongGame(9);
+        Path file = directory.resolve("long.replay");
+        replay.write(file);
+        
+        ReplayPlayer player = new ReplayFile(file).seek(replay.getFinalTick() / 2);
+        player.playToEnd();
+        assertTrue(player.matchesRecording());
+        assertTrue(player.getEngine().isGameOver());
+    }
+    
+    @Test
+    public void testOldReplayWithoutKeyframesCanSeek() throws IOException {
+        Replay replay = recordLongGame(4);
+        byte[] bytes = replay.toBytes();
+        // Cut off the keyframes and index, like a file written before they existed
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        Replay.fromBytes(in);
+        Path file = directory.resolve("old.replay");
+        Files.write(file, Arrays.copyOf(bytes, in.position()));
+        
+        ReplayFile replayFile = new ReplayFile(file);
+        assertEquals(0, replayFile.getKeyframeCount());
+        long target = 3 * Replay.KEYFRAME_INTERVAL + 17;
+        ReplayPlayer fromStart = new ReplayPlayer(replay);
+        while (fromStart.getEngine().getTick() < target && fromStart.step()) {
+            // Play up to the target
+        }
+        assertSameState(fromStart.getEngine(), replayFile.seek(target).getEngine());
+    }
+}
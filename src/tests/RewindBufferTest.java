@@ -0,0 +1,141 @@
+package tests;
+
+import model.GameEngine;
+import model.GameRandom;
+import model.RewindBuffer;
+import model.Snake;
+import model.Snake.Direction;
+import model.StateHash;
+import model.Tile;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RewindBufferTest {
+    
+    private static final long INTERVAL = 75_000_000;
+    
+    /**
+     * Pick the input of a player that chases the first FoodPellet and sometimes turns at random
+     */
+    private static Direction chase(GameEngine engine, GameRandom player) {
+        Snake snake = engine.getSnake();
+        Tile head = snake.getHead();
+        Tile food = engine.getBoard().getFoodPellets().get(0).getCurrentTile();
+        Direction wanted;
+        if (player.nextInt(8) == 0) {
+            wanted = Direction.values()[player.nextInt(4)];
+        } else if (food.getTileX() != head.getTileX()) {
+            wanted = food.getTileX() < head.getTileX() ? Direction.LEFT : Direction.RIGHT;
+        } else {
+            wanted = food.getTileY() < head.getTileY() ? Direction.UP : Direction.DOWN;
+        }
+        return wanted == snake.getDirection() ? null : wanted;
+    }
+    
+    /**
+     * Play a game, storing the input of every tick and the hash of the game after it
+     */
+    private static void play(GameEngine engine, long seed, int maxTicks, List<Direction> inputs, List<Long> hashes) {
+        GameRandom player = new GameRandom(seed);
+        hashes.add(engine.getStateHash());
+        while (!engine.isGameOver() && engine.getTick() < maxTicks) {
+            Direction input = chase(engine, player);
+            inputs.add(input);
+            engine.step(input);
+            hashes.add(engine.getStateHash());
+        }
+    }
+    
+    @Test
+    public void testRewindToStart() {
+        for (long seed = 1; seed <= 10; seed++) {
+            GameEngine engine = new GameEngine(600, 600, 3, seed, INTERVAL);
+            RewindBuffer rewind = new RewindBuffer(engine, 5000);
+            List<Direction> inputs = new ArrayList<>();
+            List<Long> hashes = new ArrayList<>();
+            play(engine, seed, 3000, inputs, hashes);
+            assertEquals(engine.getTick(), rewind.getTickCount());
+            
+            while (rewind.stepBack()) {
+                long tick = engine.getTick();
+                assertEquals((long) hashes.get((int) tick), engine.getStateHash(), "Seed " + seed + " at tick " + tick);
+                assertEquals(StateHash.compute(engine), engine.getStateHash());
+                assertFalse(engine.isGameOver());
+            }
+            assertEquals(0, engine.getTick());
+            assertEquals(new GameEngine(600, 600, 3, seed, INTERVAL).getStateHash(), engine.getStateHash());
+            assertEquals(0, engine.getScoreManager().getCurrentScore());
+            assertEquals(1, engine.getSnake().size());
+        }
+    }
+    
+    @Test
+    public void testPlayAgainAfterRewind() {
+        for (long seed = 1; seed <= 10; seed++) {
+            GameEngine engine = new GameEngine(600, 600, 3, seed, INTERVAL);
+            RewindBuffer rewind = new RewindBuffer(engine, 5000);
+            List<Direction> inputs = new ArrayList<>();
+            List<Long> hashes = new ArrayList<>();
+            play(engine, seed, 3000, inputs, hashes);
+            
+            // Going back and playing the same inputs again has to place every FoodPellet the same way
+            long end = engine.getTick();
+            rewind.rewind((int) end / 2);
+            for (long tick = engine.getTick(); tick < end; tick++) {
+                engine.step(inputs.get((int) tick));
+                assertEquals((long) hashes.get((int) tick + 1), engine.getStateHash(), "Seed " + seed + " at tick " + (tick + 1));
+            }
+        }
+    }
+    
+    @Test
+    public void testOldestTicksAreForgotten() {
+        GameEngine engine = new GameEngine(600, 600, 3, 4, INTERVAL);
+        RewindBuffer rewind = new RewindBuffer(engine, 50);
+        List<Long> hashes = new ArrayList<>();
+        play(engine, 4, 200, new ArrayList<>(), hashes);
+        int end = (int) engine.getTick();
+        assertTrue(end > 100, "The test player should last longer than the buffer.");
+        assertEquals(50, rewind.getTickCount());
+        
+        assertEquals(50, rewind.rewind(1000));
+        assertEquals(end - 50, engine.getTick());
+        assertEquals((long) hashes.get(end - 50), engine.getStateHash());
+        assertFalse(rewind.stepBack());
+    }
+    
+    @Test
+    public void testGameOverIsUndone() {
+        GameEngine engine = new GameEngine(600, 600, 1, 2, INTERVAL);
+        RewindBuffer rewind = new RewindBuffer(engine, 100);
+        while (engine.step(null)) {
+            // Run into the wall
+        }
+        long end = engine.getTick();
+        int score = engine.getScoreManager().getCurrentScore();
+        
+        assertTrue(rewind.stepBack());
+        assertFalse(engine.isGameOver());
+        assertEquals(end - 1, engine.getTick());
+        assertFalse(engine.step(null));
+        assertEquals(end, engine.getTick());
+        assertEquals(score, engine.getScoreManager().getCurrentScore());
+    }
+    
+    @Test
+    public void testClearForgetsEverything() {
+        GameEngine engine = new GameEngine(600, 600, 1, 6, INTERVAL);
+        RewindBuffer rewind = new RewindBuffer(engine, 100);
+        engine.step(null);
+        engine.step(null);
+        rewind.clear();
+        assertEquals(0, rewind.getTickCount());
+        assertEquals(0, rewind.rewind(5));
+        assertEquals(2, engine.getTick());
+    }
+}
@@ -0,0 +1,321 @@
+package tests;
+
+import model.GameRandom;
+import model.SnakeAccount;
+import model.SnakeAccountCollection;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnakeAccountCollectionTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    public void testChangesSurviveRestart() throws Exception {
+        SnakeAccountCollection accounts = new SnakeAccountCollection(directory);
+        accounts.readState();
+        SnakeAccount account = new SnakeAccount("kayla", "secret");
+        assertTrue(accounts.addAccount(account));
+        account.setHighScore(12);
+        accounts.updateOverallHighScore(12);
+        accounts.flush();
+        
+        SnakeAccountCollection reloaded = new SnakeAccountCollection(directory);
+        reloaded.readState();
+        SnakeAccount loaded = reloaded.getAccount("kayla");
+        assertNotNull(loaded);
+        assertTrue(loaded.login("secret"));
+        assertEquals(12, loaded.getHighScore());
+        assertEquals(12, reloaded.getOverallHighScore());
+    }
+    
+    @Test
+    public void testSaveOnlyAppendsChanges() throws Exception {
+        SnakeAccountCollection accounts = new SnakeAccountCollection(directory);
+        accounts.readState();
+        SnakeAccount account = new SnakeAccount("brendan", "pw");
+        accounts.addAccount(account);
+        accounts.flush();
+        long before = Files.size(directory.resolve("accounts.journal"));
+        
+        account.setHighScore(3);
+        accounts.flush();
+        long grown = Files.size(directory.resolve("accounts.journal")) - before;
+        assertTrue(grown > 0 && grown < 32, "A high score change should append one small record.");
+    }
+    
+    @Test
+    public void testTooLongRecordIsNotSaved() throws Exception {
+        SnakeAccountCollection accounts = new SnakeAccountCollection(directory);
+        accounts.readState();
+        assertThrows(IllegalArgumentException.class, () -> accounts.addAccount(new SnakeAccount("x".repeat(20_000), "pw")));
+        assertThrows(IllegalArgumentException.class, () -> accounts.addAccount(new SnakeAccount("y", "\u540d".repeat(6_000))));
+        assertNull(accounts.getAccount("x".repeat(20_000)), "An account that can not be saved should not be added.");
+        assertNull(accounts.getAccount("y"));
+        accounts.addAccount(new SnakeAccount("vannela", "pw"));
+        accounts.flush();
+        
+        // The record that did not fit must not corrupt the records written after it
+        SnakeAccountCollection reloaded = new SnakeAccountCollection(directory);
+        reloaded.readState();
+        assertTrue(reloaded.getAccount("vannela").login("pw"));
+        assertNull(reloaded.getAccount("x".repeat(20_000)));
+        assertNull(reloaded.getAccount("y"));
+    }
+    
+    @Test
+    public void testGarbageTailIsDropped() throws Exception {
+        SnakeAccountCollection accounts = new SnakeAccountCollection(directory);
+        accounts.readState();
+        accounts.addAccount(new SnakeAccount("sameeka", "pw"));
+        accounts.getAccount("sameeka").setHighScore(9);
+        accounts.flush();
+        Path journal = directory.resolve("accounts.journal");
+        long size = Files.size(journal);
+        
+        // A high score record whose length is a varint that never ends
+        byte[] garbage = {2, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+        Files.write(journal, garbage, StandardOpenOption.APPEND);
+        
+        SnakeAccountCollection reloaded = new SnakeAccountCollection(directory);
+        reloaded.readState();
+        assertEquals(9, reloaded.getAccount("sameeka").getHighScore());
+        assertEquals(size, Files.size(journal), "The journal should be cut back to the last good record.");
+    }
+    
+    @Test
+    public void testCompactionKeepsEveryChange() throws Exception {
+        SnakeAccountCollection accounts = new SnakeAccountCollection(directory);
+        accounts.readState();
+        for (int i = 0; i < 600; i++) {
+            SnakeAccount account = new SnakeAccount("player" + i, "pw");
+            accounts.addAccount(account);
+            account.setHighScore(i);
+        }
+        accounts.flush();
+        assertTrue(Files.exists(directory.resolve("accounts.dat")), "A long journal should be compacted into a snapshot.");
+        // Saves run while accounts are added, so records made after the rotation may start a new journal
+        assertFalse(Files.exists(directory.resolve("accounts.journal.compacting")), "The rotated journal should be deleted once the snapshot is written.");
+        
+        accounts.getAccount("player7").setHighScore(700);
+        accounts.flush();
+        
+        SnakeAccountCollection reloaded = new SnakeAccountCollection(directory);
+        reloaded.readState();
+        assertEquals(599, reloaded.getAccount("player599").getHighScore());
+        assertEquals(700, reloaded.getAccount("player7").getHighScore());
+    }
+    
+    @Test
+    public void testInterruptedCompactionIsFinished() throws Exception {
+        SnakeAccountCollection accounts = new SnakeAccountCollection(directory);
+        accounts.readState();
+        accounts.addAccount(new SnakeAccount("krish", "pw"));
+        accounts.flush();
+        // A crash right after the journal was rotated, before the snapshot was written
+        Files.move(directory.resolve("accounts.journal"), directory.resolve("accounts.journal.compacting"));
+        
+        SnakeAccountCollection reloaded = new SnakeAccountCollection(directory);
+        reloaded.readState();
+        assertTrue(reloaded.getAccount("krish").login("pw"));
+        assertFalse(Files.exists(directory.resolve("accounts.journal.compacting")), "The rotated journal should be folded into a snapshot.");
+        
+        for (int i = 0; i < 600; i++) {
+            SnakeAccount account = new SnakeAccount("player" + i, "pw");
+            reloaded.addAccount(account);
+            account.setHighScore(i);
+        }
+        reloaded.flush();
+        
+        // Compaction runs again, so the early changes are in the snapshot and not only in the journal
+        Files.deleteIfExists(directory.resolve("accounts.journal"));
+        SnakeAccountCollection fromSnapshot = new SnakeAccountCollection(directory);
+        fromSnapshot.readState();
+        assertNotNull(fromSnapshot.getAccount("krish"));
+        assertNotNull(fromSnapshot.getAccount("player0"), "A compaction should have run after the interrupted one.");
+    }
+    
+    @Test
+    public void testLegacyAccountsAreConverted() throws Exception {
+        List<SnakeAccount> legacy = new ArrayList<>();
+        SnakeAccount account = new SnakeAccount("sameeka", "pw");
+        account.setHighScore(40);
+        legacy.add(account);
+        try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(directory.resolve("jukebox_accounts.ser")))) {
+            out.writeObject(legacy);
+        }
+        try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(directory.resolve("overall_high_score.ser")))) {
+            out.writeObject(40);
+        }
+        
+        SnakeAccountCollection accounts = new SnakeAccountCollection(directory);
+        accounts.readState();
+        assertEquals(40, accounts.getAccount("sameeka").getHighScore());
+        assertEquals(40, accounts.getOverallHighScore());
+        assertTrue(Files.exists(directory.resolve("accounts.dat")));
+        
+        SnakeAccountCollection reloaded = new SnakeAccountCollection(directory);
+        reloaded.readState();
+        assertTrue(reloaded.getAccount("sameeka").login("pw"));
+        assertEquals(40, reloaded.getAccount("sameeka").getHighScore());
+    }
+    @Test
+    public void testDuplicateUsernameIsRejected() {
+        SnakeAccountCollection accounts = new SnakeAccountCollection(directory);
+        assertTrue(accounts.addAccount(new SnakeAccount("krish", "first")));
+        assertFalse(accounts.addAccount(new SnakeAccount("krish", "second")));
+        assertTrue(accounts.getAccount("krish").login("first"));
+        assertNull(accounts.getAccount("nobody"));
+    }
+    
+    @Test
+    public void testConcurrentSignUpsKeepNamesUnique() throws Exception {
+        SnakeAccountCollection accounts = new SnakeAccountCollection(directory);
+        AtomicInteger created = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (accounts.addAccount(new SnakeAccount("player" + i, "pw")))
+                        created.incrementAndGet();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(1000, created.get(), "Each username should be created by exactly one thread.");
+        assertEquals(1001, accounts.getAccounts().size());
+    }
+    
+    @Test
+    public void testTopAccountsFollowScoreChanges() {
+        SnakeAccountCollection accounts = new SnakeAccountCollection(directory);
+        GameRandom random = new GameRandom(7);
+        List<SnakeAccount> all = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            SnakeAccount account = new SnakeAccount("player" + i, "pw");
+            accounts.addAccount(account);
+            all.add(account);
+        }
+        for (int round = 0; round < 2000; round++) {
+            SnakeAccount account = all.get(random.nextInt(all.size()));
+            account.setHighScore(account.getHighScore() + random.nextInt(50));
+            
+            List<SnakeAccount> expected = accounts.getAccounts().stream()
+                    .sorted(Comparator.comparing(SnakeAccount::getHighScore).reversed()
+                            .thenComparing(SnakeAccount::getUsername))
+                    .limit(SnakeAccountCollection.LEADERBOARD_PLACES)
+                    .collect(Collectors.toList());
+            assertEquals(expected, accounts.getTopAccounts());
+        }
+    }
+    
+    @Test
+    public void testTopAccountsAfterRestart() throws Exception {
+        SnakeAccountCollection accounts = new SnakeAccountCollection(directory);
+        accounts.readState();
+        for (int i = 0; i < 10; i++) {
+            SnakeAccount account = new SnakeAccount("player" + i, "pw");
+            accounts.addAccount(account);
+            account.setHighScore(i * 10);
+        }
+        accounts.flush();
+        
+        SnakeAccountCollection reloaded = new SnakeAccountCollection(directory);
+        reloaded.readState();
+        List<SnakeAccount> top = reloaded.getTopAccounts();
+        assertEquals(5, top.size());
+        assertEquals("player9", top.get(0).getUsername());
+        assertEquals(50, top.get(4).getHighScore());
+    }
+    
+    @Test
+    public void testRanksMatchSortedOrder() {
+        SnakeAccountCollection accounts = new SnakeAccountCollection(directory);
+        GameRandom random = new GameRandom(11);
+        List<SnakeAccount> all = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            SnakeAccount account = new SnakeAccount("player" + i, "pw");
+            accounts.addAccount(account);
+            all.add(account);
+        }
+        for (int round = 0; round < 500; round++) {
+            SnakeAccount changed = all.get(random.nextInt(all.size()));
+            changed.setHighScore(changed.getHighScore() + random.nextInt(40));
+            
+            List<SnakeAccount> sorted = accounts.getAccounts().stream()
+                    .sorted(Comparator.comparing(SnakeAccount::getHighScore).reversed()
+                            .thenComparing(SnakeAccount::getUsername))
+                    .collect(Collectors.toList());
+            SnakeAccount probe = all.get(random.nextInt(all.size()));
+            int rank = accounts.getRank(probe.getUsername());
+            assertEquals(sorted.indexOf(probe) + 1, rank);
+            assertEquals(sorted.subList(rank - 1, Math.min(sorted.size(), rank + 4)), accounts.getRanked(rank, 5));
+            
+            int score = random.nextInt(200);
+            assertEquals(sorted.stream().filter(a -> a.getHighScore() > score).count(), accounts.countAbove(score));
+        }
+        assertEquals(-1, accounts.getRank("nobody"));
+        assertTrue(accounts.getRanked(1000, 5).isEmpty());
+    }
+    
+    @Test
+    public void testRanksAfterRestart() throws Exception {
+        SnakeAccountCollection accounts = new SnakeAccountCollection(directory);
+        accounts.readState();
+        GameRandom random = new GameRandom(12);
+        for (int i = 0; i < 300; i++) {
+            SnakeAccount account = new SnakeAccount("player" + i, "pw");
+            accounts.addAccount(account);
+            account.setHighScore(random.nextInt(100));
+        }
+        accounts.flush();
+        
+        // The rankings are built in one pass after loading, and must stay right as scores change afterwards
+        SnakeAccountCollection reloaded = new SnakeAccountCollection(directory);
+        reloaded.readState();
+        for (int round = 0; round < 100; round++) {
+            List<SnakeAccount> sorted = reloaded.getAccounts().stream()
+                    .sorted(Comparator.comparing(SnakeAccount::getHighScore).reversed()
+                            .thenComparing(SnakeAccount::getUsername))
+                    .collect(Collectors.toList());
+            for (int rank = 1; rank <= sorted.size(); rank++)
+                assertEquals(rank, reloaded.getRank(sorted.get(rank - 1).getUsername()));
+            assertEquals(sorted.subList(0, 5), reloaded.getTopAccounts());
+            
+            reloaded.getAccount("player" + random.nextInt(300)).setHighScore(random.nextInt(150));
+        }
+    }
+    
+    @Test
+    public void testChangesAreSavedWithoutWaiting() throws Exception {
+        SnakeAccountCollection accounts = new SnakeAccountCollection(directory);
+        accounts.readState();
+        SnakeAccount account = new SnakeAccount("vannela", "pw");
+        accounts.addAccount(account);
+        for (int score = 1; score <= 100; score++)
+            account.setHighScore(score);
+        accounts.writeState();
+        accounts.close();
+        accounts.flush();
+        
+        SnakeAccountCollection reloaded = new SnakeAccountCollection(directory);
+        reloaded.readState();
+        assertEquals(100, reloaded.getAccount("vannela").getHighScore());
+    }
+}
@@ -8,16 +8,28 @@ import javafx.embed.swing.JFXPanel;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.input.KeyCode;
+import model.Board;
+import model.FoodPellet;
+import model.ReplayPlayer;
 import model.Snake;
 import model.SnakeGame;
+import model.Tile;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class SnakeGameTest {
     
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final Snake.Direction[] SQUARE =
+            {Snake.Direction.DOWN, Snake.Direction.LEFT, Snake.Direction.UP, Snake.Direction.RIGHT};
+    private static final KeyCode[] SQUARE_KEYS = {KeyCode.DOWN, KeyCode.LEFT, KeyCode.UP, KeyCode.RIGHT};
+    
     private SnakeGame snakeGame;
     private GraphicsContext gc;
     Canvas canvas = new Canvas(800, 600);
@@ -54,7 +66,124 @@ public class SnakeGameTest {
 
     }
     
+    @Test
+    public void testTickDoesNotAllocate() {
+        // No pellets, so the Snake can circle a square forever without growing
+        SnakeGame game = new SnakeGame(800, 600, 75_000_000, 0, gc, null);
+        Snake snake = game.getSnake();
+        for (int i = 0; i < 20; i++) {
+            snake.grow();
+        }
+        
+        // The first laps create every Tile on the path and give the JIT time to settle
+        long allocated = 0;
+        for (int round = 0; round < 5; round++) {
+            long before = allocatedBytes();
+            circle(game, 8_000);
+            allocated = allocatedBytes() - before;
+        }
+        
+        assertFalse(game.isGameOver());
+        assertEquals(0, allocated, "A tick should not allocate once the game is warmed up.");
+    }
+    
+    private static void circle(SnakeGame game, int ticks) {
+        // 8000 ticks is a whole number of laps around an 8x8 square. Turns follow the tick of the
+        // game, so a rewound game goes on along the same square
+        for (int i = 0; i < ticks; i++) {
+            long tick = game.getEngine().getTick();
+            if (tick % 8 == 0) {
+                game.getSnake().setDirection(SQUARE[(int) (tick / 8 % 4)]);
+            }
+            game.update();
+        }
+    }
     
+    @Test
+    public void testRewindDoesNotAllocate() {
+        SnakeGame game = new SnakeGame(800, 600, 75_000_000, 0, gc, null);
+        Snake snake = game.getSnake();
+        for (int i = 0; i < 20; i++) {
+            snake.grow();
+        }
+        
+        long allocated = 0;
+        for (int round = 0; round < 5; round++) {
+            circle(game, 8_000);
+            long before = allocatedBytes();
+            while (game.rewind() > 0) {
+                // Undo everything the buffer holds
+            }
+            allocated = allocatedBytes() - before;
+        }
+        
+        assertFalse(game.isGameOver());
+        assertEquals(0, allocated, "Rewinding should not allocate once the game is warmed up.");
+    }
+    
+    @Test
+    public void testFinishedGameStaysFinished() {
+        for (int i = 0; i < 1_000 && !snakeGame.isGameOver(); i++) {
+            snakeGame.update();
+        }
+        assertTrue(snakeGame.isGameOver());
+        long finalTick = snakeGame.getReplay().getFinalTick();
+        assertTrue(finalTick >= 0);
+        
+        snakeGame.handleKeyPress(KeyCode.BACK_SPACE);
+        assertEquals(0, snakeGame.rewind(), "Only a game being played can be rewound.");
+        assertTrue(snakeGame.isGameOver());
+        assertEquals(finalTick, snakeGame.getReplay().getFinalTick());
+    }
+    
+    @Test
+    public void testRewoundGameReplaysExactly() {
+        SnakeGame game = new SnakeGame(800, 600, 75_000_000, 5, 21, gc, null);
+        for (int i = 0; i < 400 && !game.isGameOver(); i++) {
+            if (i % 8 == 0) {
+                game.handleKeyPress(SQUARE_KEYS[(i / 8) % 4]);
+            }
+            game.update();
+            if (i % 100 == 99) {
+                long tick = game.getEngine().getTick();
+                game.handleKeyPress(KeyCode.BACK_SPACE);
+                assertTrue(game.getEngine().getTick() < tick, "The rewind key should step the game back.");
+            }
+        }
+        
+        // The recording only holds the inputs that led to the rewound game
+        ReplayPlayer player = new ReplayPlayer(game.getReplay());
+        while (player.getEngine().getTick() < game.getEngine().getTick() && player.step()) {
+            // Play up to the same tick
+        }
+        assertEquals(game.getEngine().getTick(), player.getEngine().getTick());
+        assertEquals(game.getEngine().getStateHash(), player.getEngine().getStateHash());
+    }
+    
+    @Test
+    public void testRespawnDoesNotAllocate() {
+        // Tiles are created on first use, so touch every one of them before measuring
+        Board board = snakeGame.getBoard();
+        for (int x = 0; x < board.getColumns(); x++) {
+            for (int y = 0; y < board.getRows(); y++) {
+                board.getTile(Tile.pack(x, y));
+            }
+        }
+        FoodPellet pellet = board.getFoodPellets().get(0);
+        
+        // Only the last round counts, the earlier ones give the JIT time to settle
+        long allocated = 0;
+        for (int round = 0; round < 5; round++) {
+            long before = allocatedBytes();
+            for (int i = 0; i < 10_000; i++) {
+                pellet.respawn(false);
+            }
+            allocated = allocatedBytes() - before;
+        }
+        assertEquals(0, allocated, "Respawning a pellet should not allocate.");
+    }
+    
+    private static long allocatedBytes() {
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
 }
-
- 
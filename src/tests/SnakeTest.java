@@ -1,6 +1,5 @@
 package tests;
 
-import javafx.scene.paint.Color;
 import model.Snake;
 import model.Snake.Direction;
 import model.Tile;
@@ -16,7 +15,7 @@ public class SnakeTest {
  
 	@BeforeEach
 	public void setUp() {
-		snake = new Snake(300, 300, Color.GREEN);
+		snake = new Snake(300, 300);
 	}
 
 	@Test
@@ -99,4 +98,28 @@ public class SnakeTest {
         snake.move();
         assertTrue(snake.hasCollidedWithSelf(), "Snake should detect collision with itself.");
     }
+    
+    @Test
+    public void testGrowPastInitialCapacity() {
+        for (int i = 0; i < 99; i++) {
+            snake.grow();
+            snake.move();
+        }
+        assertEquals(100, snake.size());
+        assertEquals(100, snake.getBody().size());
+        assertEquals(114, snake.getHead().getTileX());
+        assertEquals(15, snake.getBody().get(99).getTileX(), "Tail should trail the head by the body length.");
+    }
+    
+    @Test
+    public void testBodyViewFollowsHead() {
+        snake.grow();
+        snake.grow();
+        snake.move();
+        snake.setDirection(Direction.DOWN);
+        snake.move();
+        assertEquals(snake.getHead(), snake.getBody().get(0));
+        assertEquals(new Tile(320, 300), snake.getBody().get(1));
+        assertEquals(new Tile(300, 300), snake.getBody().get(2));
+    }
 }
@@ -0,0 +1,191 @@
+package tests;
+
+import model.DesyncFinder;
+import model.GameEngine;
+import model.GameRandom;
+import model.HashTrace;
+import model.Replay;
+import model.ReplayFile;
+import model.ReplayPlayer;
+import model.Snake;
+import model.Snake.Direction;
+import model.StateHash;
+import model.Tile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateHashTest {
+    
+    private static final long INTERVAL = 75_000_000;
+    
+    @TempDir
+    Path directory;
+    
+    /**
+     * Play a game with a player that chases the first FoodPellet and sometimes turns at random,
+     * checking the hash after every tick
+     */
+    private static Replay recordGame(long seed, int maxTicks) {
+        GameEngine engine = new GameEngine(600, 600, 3, seed, INTERVAL);
+        Replay replay = new Replay(seed, INTERVAL, 3, 600, 600);
+        GameRandom player = new GameRandom(seed);
+        while (!engine.isGameOver() && engine.getTick() < maxTicks) {
+            Snake snake = engine.getSnake();
+            Tile head = snake.getHead();
+            Tile food = engine.getBoard().getFoodPellets().get(0).getCurrentTile();
+            Direction wanted;
+            if (player.nextInt(8) == 0) {
+                wanted = Direction.values()[player.nextInt(4)];
+            } else if (food.getTileX() != head.getTileX()) {
+                wanted = food.getTileX() < head.getTileX() ? Direction.LEFT : Direction.RIGHT;
+            } else {
+                wanted = food.getTileY() < head.getTileY() ? Direction.UP : Direction.DOWN;
+            }
+            if (wanted != snake.getDirection()) {
+                replay.record(engine.getTick(), wanted);
+                snake.setDirection(wanted);
+            }
+            engine.step(null);
+            assertEquals(StateHash.compute(engine), engine.getStateHash(), "Hash at tick " + engine.getTick());
+        }
+        replay.finish(engine);
+        return replay;
+    }
+    
+    /**
+     * Play a Replay from the start and get the state hash after every tick
+     */
+    private static long[] stateHashes(Replay replay) {
+        ReplayPlayer player = new ReplayPlayer(replay);
+        long[] hashes = new long[(int) replay.getFinalTick() + 1];
+        hashes[0] = player.getEngine().getStateHash();
+        while (!player.isFinished()) {
+            player.step();
+            hashes[(int) player.getEngine().getTick()] = player.getEngine().getStateHash();
+        }
+        return hashes;
+    }
+    
+    @Test
+    public void testIncrementalHashMatchesFullHash() {
+        int best = 0;
+        for (long seed = 1; seed <= 10; seed++) {
+            best = Math.max(best, recordGame(seed, 3000).getFinalScore());
+        }
+        assertTrue(best > 0, "The Snake should grow, or growing is never checked.");
+    }
+    
+    @Test
+    public void testSameGameSameHash() {
+        GameEngine first = new GameEngine(600, 600, 3, 11, INTERVAL);
+        GameEngine second = new GameEngine(600, 600, 3, 11, INTERVAL);
+        assertEquals(first.getStateHash(), second.getStateHash());
+        first.step(null);
+        assertNotEquals(first.getStateHash(), second.getStateHash());
+        second.step(null);
+        assertEquals(first.getStateHash(), second.getStateHash());
+        
+        GameEngine otherSeed = new GameEngine(600, 600, 3, 12, INTERVAL);
+        otherSeed.step(null);
+        assertNotEquals(first.getStateHash(), otherSeed.getStateHash());
+    }
+    
+    @Test
+    public void testSameReplaySameTrace() throws IOException {
+        Replay replay = recordGame(5, 2000);
+        HashTrace trace = HashTrace.record(replay);
+        assertEquals(replay.getFinalTick() + 1, trace.length());
+        assertEquals(-1, DesyncFinder.firstDivergence(trace, HashTrace.record(replay)));
+        
+        Path file = directory.resolve("game.hashes");
+        trace.write(file);
+        assertTrue(HashTrace.isHashTrace(file));
+        assertEquals(-1, DesyncFinder.firstDivergence(trace, HashTrace.read(file)));
+    }
+    
+    @Test
+    public void testFirstDivergenceFindsChangedInput() {
+        for (long seed = 1; seed <= 10; seed++) {
+            Replay replay = recordGame(seed, 3000);
+            int changed = replay.getInputCount() / 2;
+            // The same game with one key pressed a tick later
+            Replay late = new Replay(seed, INTERVAL, 3, 600, 600);
+            for (int i = 0; i < replay.getInputCount(); i++) {
+                long tick = replay.getInputTick(i) + (i >= changed ? 1 : 0);
+                late.record(tick, replay.getInputDirection(i));
+            }
+            
+            HashTrace first = HashTrace.record(replay);
+            HashTrace second = HashTrace.record(late);
+            int expected = 0;
+            while (expected < first.length() && expected < second.length()
+                    && first.get(expected) == second.get(expected)) {
+                expected++;
+            }
+            long found = DesyncFinder.firstDivergence(first, second);
+            if (expected == first.length() && expected == second.length()) {
+                assertEquals(-1, found);
+            } else {
+                assertEquals(expected, found, "Seed " + seed);
+                assertTrue(found > replay.getInputTick(changed), "Nothing differs before the late key press.");
+            }
+        }
+    }
+    
+    @Test
+    public void testShorterRunDivergesWhereItEnds() {
+        HashTrace longer = new HashTrace();
+        HashTrace shorter = new HashTrace();
+        for (int i = 0; i < 100; i++) {
+            longer.add(i);
+            if (i < 60)
+                shorter.add(i);
+        }
+        assertEquals(60, DesyncFinder.firstDivergence(longer, shorter));
+        assertEquals(0, DesyncFinder.firstDivergence(longer, new HashTrace()));
+    }
+    
+    @Test
+    public void testRunsThatMeetAgainStillDiverge() {
+        // Without FoodPellets nothing but the Snake changes, so two Snakes that take different turns
+        // to the same tile are in the same state again
+        Direction[] first = {Direction.UP, Direction.RIGHT, Direction.RIGHT};
+        Direction[] second = {Direction.RIGHT, Direction.UP, Direction.RIGHT};
+        GameEngine one = new GameEngine(600, 600, 0, 9, INTERVAL);
+        GameEngine other = new GameEngine(600, 600, 0, 9, INTERVAL);
+        HashTrace oneTrace = new HashTrace();
+        HashTrace otherTrace = new HashTrace();
+        oneTrace.add(one.getStateHash());
+        otherTrace.add(other.getStateHash());
+        for (int tick = 0; tick < 10; tick++) {
+            one.step(tick < first.length ? first[tick] : null);
+            other.step(tick < second.length ? second[tick] : null);
+            oneTrace.add(one.getStateHash());
+            otherTrace.add(other.getStateHash());
+        }
+        assertFalse(one.isGameOver());
+        assertNotEquals(one.getStateHash(), new GameEngine(600, 600, 0, 9, INTERVAL).getStateHash());
+        assertEquals(one.getStateHash(), other.getStateHash(), "The runs should have met again.");
+        
+        assertEquals(1, DesyncFinder.firstDivergence(oneTrace, otherTrace));
+    }
+    
+    @Test
+    public void testSeekRestoresHash() throws IOException {
+        Replay replay = recordGame(8, 3000);
+        Path file = directory.resolve("game.replay");
+        replay.write(file);
+        long[] hashes = stateHashes(replay);
+        
+        ReplayFile replayFile = new ReplayFile(file);
+        for (long tick = 0; tick <= replay.getFinalTick(); tick += 397) {
+            assertEquals(hashes[(int) tick], replayFile.seek(tick).getEngine().getStateHash(), "Hash at tick " + tick);
+        }
+    }
+}
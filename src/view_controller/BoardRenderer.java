@@ -0,0 +1,189 @@
+package view_controller;
+
+import javafx.scene.paint.Color;
+import model.Board;
+import model.FoodPellet;
+import model.Ghost;
+import model.Snake;
+import model.Tile;
+
+/**
+ * Draws the state of a Board, its FoodPellets and its Snake
+ *
+ * After the first frame only the tiles the Board reports as changed are painted again, the
+ * whole board is only redrawn when the Board asks for it, when a different Board is drawn, or
+ * when the power up halo appears or disappears. Subclasses decide how a tile is painted.
+ *
+ * A Ghost is painted in the same pass: the tiles its Board reports as changed are added to the
+ * changed tiles of the live Board, and each tile checks the occupancy grid of the Ghost's Board,
+ * so drawing the Ghost costs a few more tiles per frame and no extra pass over the board.
+ *
+ * @author Kayla Pierson
+ */
+
+public abstract class BoardRenderer {
+    protected static final int TILE_SIZE = Board.TILE_SIZE;
+    protected static final int HALO_RADIUS = 2;
+    protected static final double HALO_ALPHA = 0.2;
+    protected static final Color BACKGROUND_COLOR = Color.BLACK;
+    protected static final Color SNAKE_COLOR = Color.GREEN;
+    protected static final Color HALO_COLOR = Color.GOLD;
+    protected static final double GHOST_ALPHA = 0.35;
+    private static final Color[] PELLET_COLORS = {Color.RED, Color.ORANGE, Color.YELLOW, Color.CYAN, Color.BLUE, Color.PINK, Color.PURPLE};
+    
+    private Board lastBoard;
+    private boolean wasPoweredUp;
+    private int lastHead;
+    
+    private Ghost ghost;
+    // The Board of the Ghost drawn last frame, null when no Ghost was shown
+    private Board ghostBoard;
+    private Board lastGhostBoard;
+    
+    /**
+     * Draw the parts of the game board, FoodPellets, and Snake that changed since the last call
+     *
+     * @param board The Board to be drawn
+     */
+    public void render(Board board) {
+        Snake snake = board.getSnake();
+        boolean poweredUp = snake.isPoweredUp();
+        int head = snake.getHeadCell();
+        
+        ghostBoard = ghost != null && !ghost.isFinished() ? ghost.getEngine().getBoard() : null;
+        if (board != lastBoard || poweredUp != wasPoweredUp || ghostBoard != lastGhostBoard) {
+            board.markAllDirty();
+        } else if (poweredUp) {
+            // The halo follows the head, so it has to be erased where it was and drawn where it is
+            markHalo(board, lastHead);
+            markHalo(board, head);
+        }
+        if (ghostBoard != null) {
+            markGhost(board, ghostBoard);
+        }
+        
+        if (board.isFullRedraw()) {
+            drawAll(board, poweredUp, head);
+        } else {
+            for (int i = 0; i < board.getDirtyCount(); i++)
+                drawCell(board, board.getDirtyCell(i), poweredUp, head);
+        }
+        finishFrame(board);
+        board.clearDirty();
+        
+        lastBoard = board;
+        wasPoweredUp = poweredUp;
+        lastHead = head;
+        lastGhostBoard = ghostBoard;
+    }
+    
+    /**
+     * Mark the tiles the Ghost changed since the last frame as changed on the live Board
+     */
+    private static void markGhost(Board board, Board ghostBoard) {
+        if (ghostBoard.isFullRedraw()) {
+            board.markAllDirty();
+        } else {
+            for (int i = 0; i < ghostBoard.getDirtyCount(); i++)
+                board.markDirty(ghostBoard.getDirtyCell(i));
+        }
+        ghostBoard.clearDirty();
+    }
+    
+    /**
+     * Draw a Ghost over the board from the next frame on, it is hidden once its game ends
+     *
+     * @param ghost The Ghost to be drawn, or null to draw none
+     */
+    public void setGhost(Ghost ghost) {
+        this.ghost = ghost;
+    }
+    
+    /**
+     * Get whether the Snake of the Ghost covers a tile this frame
+     *
+     * @param cell A packed cell created by {@link Tile#pack(int, int)}
+     * @return True if a Ghost is shown and its Snake is on the tile, False otherwise
+     */
+    protected boolean isGhostAt(int cell) {
+        return ghostBoard != null && ghostBoard.isSnakeAt(cell);
+    }
+    
+    /**
+     * Get the Snake of the Ghost shown this frame
+     *
+     * @return The Snake of the Ghost, or null if no Ghost is shown
+     */
+    protected Snake getGhostSnake() {
+        return ghostBoard == null ? null : ghostBoard.getSnake();
+    }
+    
+    /**
+     * Redraw the entire game board, FoodPellets, and Snake
+     *
+     * @param board     The Board to be drawn
+     * @param poweredUp A boolean representing whether the halo is shown
+     * @param head      A packed cell holding the head of the Snake
+     */
+    protected abstract void drawAll(Board board, boolean poweredUp, int head);
+    
+    /**
+     * Paint a single tile from scratch, it has to look the same as when the whole board is drawn
+     *
+     * @param board     The Board being drawn
+     * @param cell      A packed cell created by {@link Tile#pack(int, int)}
+     * @param poweredUp A boolean representing whether the halo is shown
+     * @param head      A packed cell holding the head of the Snake
+     */
+    protected abstract void drawCell(Board board, int cell, boolean poweredUp, int head);
+    
+    /**
+     * Called once all changed tiles of a frame have been drawn
+     *
+     * @param board The Board being drawn
+     */
+    protected void finishFrame(Board board) {
+    }
+    
+    /**
+     * Get whether a tile lies inside the power up halo around the head of the Snake
+     *
+     * @param cell A packed cell created by {@link Tile#pack(int, int)}
+     * @param head A packed cell holding the head of the Snake
+     * @return True if the tile is covered by the halo, False otherwise
+     */
+    protected static boolean isInHalo(int cell, int head) {
+        return Math.abs(Tile.unpackX(cell) - Tile.unpackX(head)) <= HALO_RADIUS
+                && Math.abs(Tile.unpackY(cell) - Tile.unpackY(head)) <= HALO_RADIUS;
+    }
+    
+    /**
+     * Get the color a FoodPellet is drawn with
+     *
+     * @param pellet The FoodPellet to be drawn
+     * @return A Color for the FoodPellet
+     */
+    static Color pelletColor(FoodPellet pellet) {
+        if (pellet.isPowerUp())
+            return Color.GOLD;
+        if (pellet.isWhite())
+            return Color.WHITE;
+        return PELLET_COLORS[pellet.getColorIndex()];
+    }
+    
+    /**
+     * Mark every tile covered by the power up halo around a tile as changed
+     *
+     * @param board The Board being drawn
+     * @param cell  A packed cell created by {@link Tile#pack(int, int)} at the center of the halo
+     */
+    private void markHalo(Board board, int cell) {
+        int x = Tile.unpackX(cell);
+        int y = Tile.unpackY(cell);
+        for (int i = -HALO_RADIUS; i <= HALO_RADIUS; i++) {
+            for (int j = -HALO_RADIUS; j <= HALO_RADIUS; j++) {
+                board.markDirty(Tile.pack(x + i, y + j));
+            }
+        }
+    }
+}
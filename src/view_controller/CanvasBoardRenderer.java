@@ -0,0 +1,137 @@
+package view_controller;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import model.Board;
+import model.FoodPellet;
+import model.Snake;
+import model.Tile;
+
+/**
+ * Draws a Board onto a Canvas with one fillRect call per tile
+ *
+ * @author Kayla Pierson
+ */
+
+public class CanvasBoardRenderer extends BoardRenderer {
+    private GraphicsContext gc;
+    
+    /**
+     * Create a new CanvasBoardRenderer that draws to a given GraphicsContext
+     *
+     * @param gc A GraphicsContext used to draw the game board
+     */
+    public CanvasBoardRenderer(GraphicsContext gc) {
+        this.gc = gc;
+    }
+    
+    @Override
+    protected void drawAll(Board board, boolean poweredUp, int head) {
+        gc.setFill(BACKGROUND_COLOR);
+        gc.fillRect(0, 0, board.getWidth(), board.getHeight());
+        
+        for (FoodPellet pellet : board.getFoodPellets())
+            drawPellet(pellet);
+        
+        // The same layers as drawCell, from the bottom: pellets, halo, ghost, Snake
+        Snake snake = board.getSnake();
+        if (snake.isPoweredUp())
+            drawHalo(snake);
+        
+        Snake ghostSnake = getGhostSnake();
+        if (ghostSnake != null) {
+            gc.setGlobalAlpha(GHOST_ALPHA);
+            drawSnake(ghostSnake);
+            gc.setGlobalAlpha(1);
+        }
+        
+        drawSnake(snake);
+        
+        gc.setStroke(Color.WHITE);
+        gc.strokeLine(0, 0, board.getWidth(), 0);
+    }
+    
+    @Override
+    protected void drawCell(Board board, int cell, boolean poweredUp, int head) {
+        int x = Tile.unpackX(cell) * TILE_SIZE;
+        int y = Tile.unpackY(cell) * TILE_SIZE;
+        
+        gc.setFill(BACKGROUND_COLOR);
+        gc.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+        
+        FoodPellet pellet = board.getPelletAt(cell);
+        if (pellet != null) {
+            gc.setFill(pelletColor(pellet));
+            gc.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+        }
+        
+        if (poweredUp && isInHalo(cell, head)) {
+            gc.setGlobalAlpha(HALO_ALPHA);
+            gc.setFill(HALO_COLOR);
+            gc.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+            gc.setGlobalAlpha(1);
+        }
+        
+        if (isGhostAt(cell)) {
+            gc.setGlobalAlpha(GHOST_ALPHA);
+            gc.setFill(SNAKE_COLOR);
+            gc.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+            gc.setGlobalAlpha(1);
+        }
+        
+        if (board.isSnakeAt(cell)) {
+            gc.setFill(SNAKE_COLOR);
+            gc.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+        }
+        
+        if (y == 0) {
+            gc.setStroke(Color.WHITE);
+            gc.strokeLine(x, 0, x + TILE_SIZE, 0);
+        }
+    }
+    
+    /**
+     * Draw a FoodPellet at its current location on the board
+     *
+     * @param pellet The FoodPellet to be drawn
+     */
+    private void drawPellet(FoodPellet pellet) {
+        Tile tile = pellet.getCurrentTile();
+        if (tile == null)
+            return;
+        gc.setFill(pelletColor(pellet));
+        gc.fillRect(tile.getTileX() * TILE_SIZE, tile.getTileY() * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+    }
+    
+    /**
+     * Draw the halo around the head of a powered up snake
+     *
+     * @param snake The Snake whose halo is drawn
+     */
+    private void drawHalo(Snake snake) {
+        gc.setGlobalAlpha(HALO_ALPHA);
+        gc.setFill(HALO_COLOR);
+        Tile head = snake.getHead();
+        
+        for (int i = -HALO_RADIUS; i <= HALO_RADIUS; i++) {
+            for (int j = -HALO_RADIUS; j <= HALO_RADIUS; j++) {
+                gc.fillRect(head.getX() + i * TILE_SIZE, head.getY() + j * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+            }
+        }
+        gc.setGlobalAlpha(1);
+    }
+    
+    /**
+     * Draw the snake to the screen one segment at a time
+     *
+     * @param snake The Snake to be drawn
+     */
+    private void drawSnake(Snake snake) {
+        gc.setFill(SNAKE_COLOR);
+        // Draw each body segment of the snake
+        for (int i = 0; i < snake.size(); i++) {
+            int cell = snake.getCell(i);
+            gc.fillRect(Tile.unpackX(cell) * TILE_SIZE, Tile.unpackY(cell) * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package view_controller;
+
+import javafx.scene.canvas.GraphicsContext;
+
+/**
+ * The ways the game board can be drawn, chosen in the SettingsMenu
+ *
+ * @author Brendan Bamberg
+ */
+
+public enum DisplayMode {
+    /**
+     * Draw every tile with its own fillRect call, the classic look
+     */
+    CANVAS,
+    
+    /**
+     * Write tiles into an image that is drawn in one call, for very large boards
+     */
+    PIXELS;
+    
+    /**
+     * Create a BoardRenderer that draws in this mode
+     *
+     * @param gc A GraphicsContext used to draw the game board
+     * @return A new BoardRenderer
+     */
+    public BoardRenderer createRenderer(GraphicsContext gc) {
+        if (this == PIXELS)
+            return new PixelBoardRenderer(gc);
+        return new CanvasBoardRenderer(gc);
+    }
+}
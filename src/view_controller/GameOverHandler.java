@@ -6,13 +6,9 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
-import model.CustomFont;
+import model.FontCache;
 import model.SnakeGame;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-
 /**
  * A Scene that shows the Game Over state of a game of Snake
  *
@@ -52,30 +48,16 @@ public class GameOverHandler extends VBox {
         quit = new Button("Quit");
         
         leaderboardButton = new Button("View Leaderboard"); 
-        leaderboardButton.setFont(new CustomFont(15).getCustomFont());
+        leaderboardButton.setFont(FontCache.get(15));
         leaderboardButton.setOnAction(e -> {
-            LeaderBoard lb = new LeaderBoard(snakeGUI.getAccountCollection());
+            LeaderBoard lb = new LeaderBoard(snakeGUI.getAccountCollection(), snakeGUI.getLoginPane().getCurrentAccount());
             lb.display(new Stage());
         });
 
         
-        // Create a new custom font for the Game Over text
-        FileInputStream fontInputStream;
-        try {
-            fontInputStream = new FileInputStream("resources/Emulogic-zrEw.ttf");
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
-        }
-        Font gameOverFont = Font.loadFont(fontInputStream, 36);
-        
-        // Create a new custom font for the other text
-        try {
-            fontInputStream = new FileInputStream("resources/Emulogic-zrEw.ttf");
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
-        }
-        
-        Font labelFont = Font.loadFont(fontInputStream, 15);
+        // Fonts for the Game Over text and the other text
+        Font gameOverFont = FontCache.get(36);
+        Font labelFont = FontCache.get(15);
         
         gameOverLabel.setFont(gameOverFont);
         scoreLabel.setFont(labelFont);
@@ -89,12 +71,6 @@ public class GameOverHandler extends VBox {
         quit.setOnAction(event -> {
         
         });
-        
-        try {
-            fontInputStream.close();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
     }
     
     /**
@@ -0,0 +1,99 @@
+package view_controller;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.effect.Glow;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import model.FontCache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The text shown over the board when a game of Snake ends
+ *
+ * The text is laid out and drawn once per board size into a transparent image, showing it
+ * afterwards is a single drawImage call.
+ *
+ * @author Sameeka Maroli
+ */
+
+public class GameOverOverlay {
+    private static final String GAME_OVER_TEXT = "Game Over";
+    private static final String RESTART_TEXT = "Press 'R' to Restart";
+    private static final String MAIN_MENU_TEXT = "Press ESCAPE to return to the main menu";
+    
+    private static final Map<Long, Image> IMAGES = new HashMap<>();
+    
+    private GameOverOverlay() {
+    }
+    
+    /**
+     * Get the overlay for a board of a given size, drawing it the first time
+     *
+     * @param width  An integer representing the width of the board
+     * @param height An integer representing the height of the board
+     * @return A transparent Image the size of the board with the game over text on it
+     */
+    public static Image get(int width, int height) {
+        long key = (long) width << 32 | (height & 0xFFFFFFFFL);
+        return IMAGES.computeIfAbsent(key, k -> compose(width, height));
+    }
+    
+    /**
+     * Draw the game over text onto a new transparent image
+     *
+     * @param width  An integer representing the width of the board
+     * @param height An integer representing the height of the board
+     * @return A new Image with the text centered on it
+     */
+    private static Image compose(int width, int height) {
+        Canvas canvas = new Canvas(width, height);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFill(Color.PURPLE);
+        
+        Font font = FontCache.get(48);
+        Text text = measure(GAME_OVER_TEXT, font);
+        double textHeight = text.getBoundsInLocal().getHeight();
+        double y = (height / 2) - (textHeight / 2);
+        
+        gc.setFont(font);
+        gc.setEffect(new Glow(0.8));
+        gc.fillText(GAME_OVER_TEXT, centerX(text, width), y);
+        gc.setEffect(null);
+        
+        font = FontCache.get(24);
+        y += 60;
+        gc.setFont(font);
+        gc.fillText(RESTART_TEXT, centerX(measure(RESTART_TEXT, font), width), y);
+        
+        font = FontCache.get(12);
+        y += 40;
+        gc.setFont(font);
+        gc.fillText(MAIN_MENU_TEXT, centerX(measure(MAIN_MENU_TEXT, font), width), y);
+        
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        return canvas.snapshot(parameters, null);
+    }
+    
+    /**
+     * Create a Text node used to measure a string in a given font
+     */
+    private static Text measure(String string, Font font) {
+        Text text = new Text(string);
+        text.setFont(font);
+        return text;
+    }
+    
+    /**
+     * Get the x-coordinate that centers measured text on the board
+     */
+    private static double centerX(Text text, int width) {
+        return (width - text.getBoundsInLocal().getWidth()) / 2;
+    }
+}
@@ -7,17 +7,32 @@ import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import model.SnakeAccount;
 import model.SnakeAccountCollection;
-import java.util.Comparator;
+import java.util.List;
 import java.util.stream.Collectors;
 import javafx.scene.Scene;
 import model.CustomFont;
 
 public class LeaderBoard extends VBox {
+    // Players shown above and below the current player
+    private static final int NEIGHBORS = 2;
+    
     private SnakeAccountCollection accountCollection;
+    private SnakeAccount player;
     private CustomFont customFont;
 
     public LeaderBoard(SnakeAccountCollection accountCollection) {
+        this(accountCollection, null);
+    }
+
+    /**
+     * Create a leaderboard that also shows the rank of a player and the players around them
+     *
+     * @param accountCollection The SnakeAccountCollection to be ranked
+     * @param player            The SnakeAccount of the current player, or null to show only the top scores
+     */
+    public LeaderBoard(SnakeAccountCollection accountCollection, SnakeAccount player) {
         this.accountCollection = accountCollection;
+        this.player = player;
         this.customFont = new CustomFont(18);  // Set font size for the leaderboard
         initializeComponents();
     }
@@ -27,20 +42,35 @@ public class LeaderBoard extends VBox {
 	 */
     private void initializeComponents() {
         ListView<String> listView = new ListView<>();
-        listView.getItems().addAll(accountCollection.getAccounts().stream()
-                .sorted(Comparator.comparing(SnakeAccount::getHighScore).reversed())
-                .limit(5)
+        listView.getItems().addAll(accountCollection.getTopAccounts().stream()
                 .map(account -> account.getUsername() + ": " + account.getHighScore())
                 .collect(Collectors.toList()));
         listView.setStyle("-fx-control-inner-background: black; -fx-text-fill: white;");
         getChildren().add(listView);
+        
+        int rank = player == null ? -1 : accountCollection.getRank(player.getUsername());
+        if (rank > 0) {
+            Label rankLabel = new Label("Your rank: " + rank + " of " + accountCollection.getAccounts().size());
+            rankLabel.setFont(customFont.getCustomFont());
+            rankLabel.setTextFill(Color.WHITE);
+            
+            int firstRank = Math.max(1, rank - NEIGHBORS);
+            List<SnakeAccount> around = accountCollection.getRanked(firstRank, 2 * NEIGHBORS + 1);
+            ListView<String> aroundView = new ListView<>();
+            for (int i = 0; i < around.size(); i++) {
+                SnakeAccount account = around.get(i);
+                aroundView.getItems().add((firstRank + i) + ". " + account.getUsername() + ": " + account.getHighScore());
+            }
+            aroundView.setStyle("-fx-control-inner-background: black; -fx-text-fill: white;");
+            getChildren().addAll(rankLabel, aroundView);
+        }
     }
 
 	/**
 	 * Displays the leaderboard
 	 */
     public void display(Stage stage) {
-        Scene scene = new Scene(this, 350, 250);
+        Scene scene = new Scene(this, 350, getChildren().size() > 1 ? 500 : 250);
         stage.setTitle("Leaderboard");
         stage.setScene(scene);
         stage.show();
@@ -148,21 +148,17 @@ public class LoginPane extends VBox {
 	    	return;
 	    }
 
-	    for (SnakeAccount account : accountCollection.getAccounts()) {
-	        if (account.getUsername().equals(username)) {
-	            if (account.login(password)) {
-	                usernameField.clear();
-	                passwordField.clear();
-	                currentAccount = account;
-	                switchToMainMenu();
-	                return;
-	            } else {
-	                statusLabel.setText("Invalid password");
-	                return;
-	            }
-	        }
+	    SnakeAccount account = accountCollection.getAccount(username);
+	    if (account == null) {
+	        statusLabel.setText("Invalid username");
+	    } else if (account.login(password)) {
+	        usernameField.clear();
+	        passwordField.clear();
+	        currentAccount = account;
+	        switchToMainMenu();
+	    } else {
+	        statusLabel.setText("Invalid password");
 	    }
-	    statusLabel.setText("Invalid username");
 	}
 
 	/**
@@ -172,18 +168,19 @@ public class LoginPane extends VBox {
 	private void addNewAccount() {
 		String username = usernameField.getText();
 		String password = passwordField.getText();
-		
 
-		for (SnakeAccount account : accountCollection.getAccounts()) {
-			if (account.getUsername().equals(username)) {
-				statusLabel.setText("username taken");
-				return;
-			}
-		}
-		
 		if (!username.isEmpty() && !password.isEmpty()) {
 			SnakeAccount newAccount = new SnakeAccount(username, password);
-			accountCollection.addAccount(newAccount);
+			// The check and the insert happen together, so two people can not take the same name
+			try {
+				if (!accountCollection.addAccount(newAccount)) {
+					statusLabel.setText("username taken");
+					return;
+				}
+			} catch (IllegalArgumentException e) {
+				statusLabel.setText("username/password too long");
+				return;
+			}
 			statusLabel.setText("Account created");
 	
 			usernameField.clear();
@@ -67,7 +67,7 @@ public class MainMenu extends VBox {
         leaderBoardButton.setBackground(new Background(new BackgroundFill(Color.BLACK, CornerRadii.EMPTY, Insets.EMPTY)));
         leaderBoardButton.setTextFill(Color.WHITE);
         leaderBoardButton.setOnAction(e -> {
-            LeaderBoard lb = new LeaderBoard(snakeGUI.getAccountCollection());
+            LeaderBoard lb = new LeaderBoard(snakeGUI.getAccountCollection(), account);
             lb.display(new Stage());
         });
     }
@@ -0,0 +1,171 @@
+package view_controller;
+
+import java.nio.IntBuffer;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.util.Callback;
+import model.Board;
+import model.FoodPellet;
+import model.Tile;
+
+/**
+ * Draws a Board by writing one pixel per tile into an image that is scaled up onto the Canvas
+ *
+ * Changed tiles are written straight into an int array shared with a PixelBuffer, and each frame
+ * pushes a single image update and a single drawImage call no matter how many tiles changed. This
+ * keeps boards with hundreds of tiles per side fast, where a fillRect per tile is not.
+ *
+ * @author Kayla Pierson
+ */
+
+public class PixelBoardRenderer extends BoardRenderer {
+    private static final int BACKGROUND_ARGB = toArgb(BACKGROUND_COLOR);
+    private static final int SNAKE_ARGB = toArgb(SNAKE_COLOR);
+    
+    private GraphicsContext gc;
+    
+    private int columns;
+    private int rows;
+    private int[] pixels;
+    private PixelBuffer<IntBuffer> pixelBuffer;
+    private WritableImage image;
+    
+    // Bounds of the tiles written this frame, in tiles
+    private int minX, minY, maxX, maxY;
+    private boolean isWholeImageChanged;
+    private final Callback<PixelBuffer<IntBuffer>, Rectangle2D> changedRegion = buffer -> changedRegion();
+    
+    /**
+     * Create a new PixelBoardRenderer that draws to a given GraphicsContext
+     *
+     * @param gc A GraphicsContext used to draw the game board
+     */
+    public PixelBoardRenderer(GraphicsContext gc) {
+        this.gc = gc;
+        resetChangedRegion();
+    }
+    
+    @Override
+    protected void drawAll(Board board, boolean poweredUp, int head) {
+        if (pixels == null || board.getColumns() != columns || board.getRows() != rows) {
+            createImage(board.getColumns(), board.getRows());
+        }
+        
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                int cell = Tile.pack(x, y);
+                pixels[y * columns + x] = colorOf(board, cell, poweredUp, head, isGhostAt(cell));
+            }
+        }
+        isWholeImageChanged = true;
+    }
+    
+    @Override
+    protected void drawCell(Board board, int cell, boolean poweredUp, int head) {
+        int x = Tile.unpackX(cell);
+        int y = Tile.unpackY(cell);
+        pixels[y * columns + x] = colorOf(board, cell, poweredUp, head, isGhostAt(cell));
+        
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+    }
+    
+    @Override
+    protected void finishFrame(Board board) {
+        if (!isWholeImageChanged && maxX < minX) {
+            return;
+        }
+        pixelBuffer.updateBuffer(changedRegion);
+        resetChangedRegion();
+        
+        gc.setImageSmoothing(false);
+        gc.drawImage(image, 0, 0, columns * TILE_SIZE, rows * TILE_SIZE);
+        gc.setStroke(Color.WHITE);
+        gc.strokeLine(0, 0, board.getWidth(), 0);
+    }
+    
+    /**
+     * Get the color of a tile, in the same layer order CanvasBoardRenderer paints them
+     *
+     * @param board     The Board being drawn
+     * @param cell      A packed cell created by {@link Tile#pack(int, int)}
+     * @param poweredUp A boolean representing whether the halo is shown
+     * @param head      A packed cell holding the head of the Snake
+     * @param ghost     A boolean representing whether the Snake of the Ghost is on the tile
+     * @return An integer holding the color as premultiplied ARGB
+     */
+    private static int colorOf(Board board, int cell, boolean poweredUp, int head, boolean ghost) {
+        if (board.isSnakeAt(cell))
+            return SNAKE_ARGB;
+        
+        FoodPellet pellet = board.getPelletAt(cell);
+        int color = pellet == null ? BACKGROUND_ARGB : toArgb(pelletColor(pellet));
+        if (poweredUp && isInHalo(cell, head))
+            color = blend(color, toArgb(HALO_COLOR), HALO_ALPHA);
+        if (ghost)
+            color = blend(color, SNAKE_ARGB, GHOST_ALPHA);
+        return color;
+    }
+    
+    /**
+     * Create the image for a board of a given size, one pixel per tile
+     */
+    private void createImage(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        pixels = new int[columns * rows];
+        pixelBuffer = new PixelBuffer<>(columns, rows, IntBuffer.wrap(pixels), PixelFormat.getIntArgbPreInstance());
+        image = new WritableImage(pixelBuffer);
+    }
+    
+    /**
+     * Get the part of the image written since the last update
+     *
+     * @return A Rectangle2D in pixels of the image, or null if the whole image changed
+     */
+    private Rectangle2D changedRegion() {
+        if (isWholeImageChanged)
+            return null;
+        return new Rectangle2D(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+    
+    /**
+     * Forget the tiles written so far
+     */
+    private void resetChangedRegion() {
+        isWholeImageChanged = false;
+        minX = Integer.MAX_VALUE;
+        minY = Integer.MAX_VALUE;
+        maxX = Integer.MIN_VALUE;
+        maxY = Integer.MIN_VALUE;
+    }
+    
+    /**
+     * Convert an opaque Color to an ARGB integer
+     */
+    private static int toArgb(Color color) {
+        return 0xFF000000
+                | (int) Math.round(color.getRed() * 255) << 16
+                | (int) Math.round(color.getGreen() * 255) << 8
+                | (int) Math.round(color.getBlue() * 255);
+    }
+    
+    /**
+     * Draw a color over another one with a given opacity, both colors are opaque
+     */
+    private static int blend(int below, int above, double alpha) {
+        int result = 0xFF000000;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int channel = (int) Math.round(((below >> shift) & 0xFF) * (1 - alpha) + ((above >> shift) & 0xFF) * alpha);
+            result |= channel << shift;
+        }
+        return result;
+    }
+}
@@ -22,9 +22,9 @@ public class SettingsMenu extends VBox {
     private static final long HARD_INTERVAL = 50_000_000;
     private static final long NIGHTMARE_INTERVAL = 25_000_000;
     
-    private Label headerLabel, difficultyLabel, sizeLabel, modeLabel;
+    private Label headerLabel, difficultyLabel, sizeLabel, modeLabel, displayLabel;
     private Slider boardSizeSlider;
-    private Button easy, medium, hard, nightmare, backButton, regularMode, frenzyMode;
+    private Button easy, medium, hard, nightmare, backButton, regularMode, frenzyMode, canvasDisplay, pixelDisplay;
     
     private CustomFont headerFont, labelFont, settingsFont;
     private Background background;
@@ -32,6 +32,7 @@ public class SettingsMenu extends VBox {
     private SnakeGUI snakeGUI;
     private long currentInterval;
     private int numPellets;
+    private DisplayMode displayMode;
     
     /**
      * Initializes a new SettingsMenu
@@ -42,6 +43,7 @@ public class SettingsMenu extends VBox {
         this.snakeGUI = snakeGUI;
         currentInterval = MEDIUM_INTERVAL;
         numPellets = 1;
+        displayMode = DisplayMode.CANVAS;
         settingsFont = new CustomFont(12);
         headerFont = new CustomFont(40);
         labelFont = new CustomFont(16);
@@ -60,10 +62,12 @@ public class SettingsMenu extends VBox {
         difficultyLabel = new Label("Difficulty");
         sizeLabel = new Label("Board Size");
         modeLabel = new Label("Game Mode");
+        displayLabel = new Label("Display");
         setFont(headerLabel, headerFont);
         setFont(difficultyLabel, labelFont);
         setFont(sizeLabel, labelFont);
         setFont(modeLabel, labelFont);
+        setFont(displayLabel, labelFont);
         
         easy = new Button("Easy");
         medium = new Button("Normal");
@@ -81,6 +85,12 @@ public class SettingsMenu extends VBox {
         setFont(frenzyMode);
         regularMode.setTextFill(Color.CYAN);
         
+        canvasDisplay = new Button("Classic");
+        pixelDisplay = new Button("Pixel");
+        setFont(canvasDisplay);
+        setFont(pixelDisplay);
+        canvasDisplay.setTextFill(Color.CYAN);
+        
         int min = 20, max = 50;
         boardSizeSlider = new Slider(min, max, 30);
         boardSizeSlider.setSnapToTicks(true);
@@ -107,6 +117,9 @@ public class SettingsMenu extends VBox {
         regularMode.setOnAction(new ModeHandler());
         frenzyMode.setOnAction(new ModeHandler());
         
+        canvasDisplay.setOnAction(event -> setDisplayMode(DisplayMode.CANVAS));
+        pixelDisplay.setOnAction(event -> setDisplayMode(DisplayMode.PIXELS));
+        
         boardSizeSlider.valueProperty().addListener(
                 (observable, oldValue, newValue) -> snakeGUI.setWindowSize(newValue.intValue(), newValue.intValue()));
         
@@ -151,8 +164,13 @@ public class SettingsMenu extends VBox {
         modeSettings.getChildren().addAll(regularMode, frenzyMode);
         modeSettings.setAlignment(Pos.CENTER);
         
+        HBox displaySettings = new HBox();
+        displaySettings.getChildren().addAll(canvasDisplay, pixelDisplay);
+        displaySettings.setAlignment(Pos.CENTER);
+        
         this.getChildren().addAll(headerLabel, spacingButton(), difficultyLabel, difficultySettings, spacingButton(),
-                sizeLabel, boardSizeSlider, spacingButton(), modeLabel, modeSettings, spacingButton(), backButton);
+                sizeLabel, boardSizeSlider, spacingButton(), modeLabel, modeSettings, displayLabel, displaySettings,
+                spacingButton(), backButton);
         this.setAlignment(Pos.CENTER);
         this.setBackground(background);
         this.setSpacing(20);
@@ -188,6 +206,26 @@ public class SettingsMenu extends VBox {
         return numPellets;
     }
     
+    /**
+     * Gets how the game board should be drawn
+     *
+     * @return A DisplayMode that represents the selected renderer
+     */
+    public DisplayMode getDisplayMode() {
+        return displayMode;
+    }
+    
+    /**
+     * Changes the display mode and highlights its button
+     *
+     * @param displayMode The DisplayMode that was selected
+     */
+    private void setDisplayMode(DisplayMode displayMode) {
+        this.displayMode = displayMode;
+        canvasDisplay.setTextFill(displayMode == DisplayMode.CANVAS ? Color.CYAN : Color.WHITE);
+        pixelDisplay.setTextFill(displayMode == DisplayMode.PIXELS ? Color.CYAN : Color.WHITE);
+    }
+    
     /**
      * A class that handles changing the difficulty (speed) of the game
      */
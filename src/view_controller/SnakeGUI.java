@@ -1,14 +1,18 @@
 package view_controller;
 
+import java.io.IOException;
+
 import javafx.application.Application;
 import javafx.scene.Scene;
-import javafx.scene.control.Alert;
-import javafx.scene.control.ButtonType;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import model.BestRuns;
+import model.FontCache;
+import model.GameRandom;
+import model.Ghost;
 import model.SnakeAccount;
 import model.SnakeAccountCollection;
 import model.SnakeGame;
@@ -38,6 +42,7 @@ public class SnakeGUI extends Application {
     private Stage mainStage;
     
     private SnakeAccountCollection accountCollection;
+    private BestRuns bestRuns = new BestRuns();
     
     public static void main(String[] args) {
         launch(args);
@@ -50,6 +55,8 @@ public class SnakeGUI extends Application {
      */
     @Override
     public void start(Stage primaryStage) {
+        // Load every font size the menus use once, before the first menu is built
+        FontCache.warmUp();
         accountCollection = new SnakeAccountCollection();
         // Display main menu, start game if that option is selected, show menus, etc.
         loginPane = new LoginPane(accountCollection, this, primaryStage);
@@ -78,9 +85,27 @@ public class SnakeGUI extends Application {
         mainStage.close();
         
         gameDisplay = new GameDisplay(WINDOW_WIDTH, WINDOW_HEIGHT + 40, snakeGame);
+        // A logged in player races their best run with these settings, on the same seed so the FoodPellets line up
+        SnakeAccount player = loginPane.getCurrentAccount();
+        Ghost ghost = null;
+        if (player != null) {
+            try {
+                ghost = bestRuns.openGhost(player.getUsername(), WINDOW_WIDTH, WINDOW_HEIGHT,
+                        settingsMenu.getNumPellets(), settingsMenu.getCurrentInterval());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        long seed = ghost != null ? ghost.getRecording().getSeed() : new GameRandom().getSeed();
+        
         // Resize the stage and scene to show the full game
         snakeGame = new SnakeGame(WINDOW_WIDTH, WINDOW_HEIGHT, settingsMenu.getCurrentInterval(),
-                settingsMenu.getNumPellets(), gameDisplay.getGraphicsContext(), this);
+                settingsMenu.getNumPellets(), seed, gameDisplay.getGraphicsContext(), this);
+        snakeGame.setDisplayMode(settingsMenu.getDisplayMode());
+        snakeGame.setGhost(ghost);
+        if (player != null) {
+            snakeGame.setBestRuns(bestRuns, player.getUsername());
+        }
         gameDisplay.setSnakeGame(snakeGame);
         
         // Create root node to hold the Canvas
@@ -148,42 +173,27 @@ public class SnakeGUI extends Application {
     }
     
     /**
-     * Asks if they want to save the data
+     * Saves the scores of the game being played and closes the window
      *
-     * @param primaryStage the primary stage
-     */
-    private void saveAlert(Stage primaryStage) {
-        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
-        alert.setTitle("Shutdown Confirmation");
-        alert.setHeaderText("Save Data?");
-        alert.setContentText("Do you want to save data before exiting?");
-        
-        ButtonType saveButton = new ButtonType("Save");
-        ButtonType closeButton = new ButtonType("Close Without Saving");
-        
-        alert.getButtonTypes().setAll(saveButton, closeButton);
-        
-        alert.showAndWait().ifPresent(buttonType -> {
-            if (buttonType == saveButton) {
-                saveDataAndClose(primaryStage);
-            } else if (buttonType == closeButton) {
-                primaryStage.close();
-            }
-        });
-    }
-    
-    /**
-     * Saves the data and closes the window
+     * Accounts and high scores are saved on their own as soon as they change, so there is nothing
+     * left to ask the player about. Closing only records the last game and lets the saves finish.
      *
      * @param primaryStage the primary stage
      */
     private void saveDataAndClose(Stage primaryStage) {
-        if (snakeGame.getScoreManager().getCurrentScore() > accountCollection.getOverallHighScore()) {
-            accountCollection.updateOverallHighScore(snakeGame.getScoreManager().getCurrentScore());
+        int currentScore = snakeGame.getScoreManager().getCurrentScore();
+        SnakeAccount account = loginPane.getCurrentAccount();
+        if (account != null && currentScore > account.getHighScore()) {
+            account.setHighScore(currentScore);
+        }
+        if (currentScore > accountCollection.getOverallHighScore()) {
+            accountCollection.updateOverallHighScore(currentScore);
             System.out.println("overall high score is now " + accountCollection.getOverallHighScore());
         }
         
-        accountCollection.writeState();
+        // Saving finishes on a background thread, which keeps the program alive until it is done
+        accountCollection.close();
+        bestRuns.close();
         primaryStage.close();
     }
     
@@ -194,15 +204,7 @@ public class SnakeGUI extends Application {
      */
     private void setOnCloseRequest(Stage primaryStage) {
         if (snakeGame != null) {
-            primaryStage.setOnCloseRequest(event -> {
-                if (loginPane.getCurrentAccount() != null || snakeGame.getScoreManager().getCurrentScore() > accountCollection.getOverallHighScore()) {
-                    
-                    if (loginPane.getCurrentAccount() != null && snakeGame.getScoreManager().getCurrentScore() > loginPane.getCurrentAccount().getHighScore()) {
-                        loginPane.getCurrentAccount().setHighScore(snakeGame.getScoreManager().getCurrentScore());
-                    }
-                    saveAlert(primaryStage);
-                }
-            });
+            primaryStage.setOnCloseRequest(event -> saveDataAndClose(primaryStage));
         }
     }
     